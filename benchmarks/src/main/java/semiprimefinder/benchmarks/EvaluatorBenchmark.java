@@ -0,0 +1,81 @@
+package semiprimefinder.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import semiprimefinder.EndingDigitRuns;
+import semiprimefinder.PrimeNumberEvaluator;
+import semiprimefinder.PrimeSieve;
+import semiprimefinder.SemiprimeEvaluator;
+import semiprimefinder.SemiprimeFinder;
+import semiprimefinder.SemiprimeReport;
+import semiprimefinder.SemiprimeResults;
+
+/**
+ * The evaluations of `PrimeNumberEvaluator` and `SemiprimeEvaluator` on data
+ * that has been computed beforehand.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EvaluatorBenchmark {
+
+  @Param({ "100000", "1000000", "10000000" })
+  private int size;
+
+  private PrimeSieve sieve;
+  private int[] primes;
+  private SemiprimeResults semiprimes;
+
+  @Setup
+  public void setUp() {
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    SemiprimeFinder finder = new SemiprimeFinder(size, parallelism);
+    sieve = finder.getPrimeSieve();
+    primes = sieve.toIntArray();
+    semiprimes = finder.getResults();
+  }
+
+  @Benchmark
+  public Map<Integer, List<List<Integer>>> findConsecutiveEndingDigits() {
+    return PrimeNumberEvaluator.findConsecutiveEndingDigits(
+        sieve.iterator(2, size));
+  }
+
+  @Benchmark
+  public EndingDigitRuns countConsecutiveEndingDigits() {
+    return PrimeNumberEvaluator.countConsecutiveEndingDigits(sieve, 3, 100,
+        Runtime.getRuntime().availableProcessors());
+  }
+
+  @Benchmark
+  public List<String> prepareCsvFile() {
+    return SemiprimeEvaluator.prepareCsvFile(primes, semiprimes);
+  }
+
+  @Benchmark
+  public boolean[] constructAllowedList() {
+    return SemiprimeEvaluator.constructAllowedList(semiprimes);
+  }
+
+  @Benchmark
+  public SemiprimeReport analyze() {
+    return SemiprimeReport.analyze(semiprimes, sieve);
+  }
+}
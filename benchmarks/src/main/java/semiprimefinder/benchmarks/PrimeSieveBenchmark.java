@@ -0,0 +1,86 @@
+package semiprimefinder.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import semiprimefinder.PrimeSieve;
+
+/**
+ * Construction of `PrimeSieve` in its different modes and the methods to walk
+ * through its prime numbers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrimeSieveBenchmark {
+
+  @Param({ "1000000", "10000000", "100000000" })
+  private int size;
+
+  /**
+   * The mode of the sieve: boolean[], compact, compact with all threads or
+   * compact with the index
+   */
+  @Param({ "boolean", "compact", "parallel", "indexed" })
+  private String mode;
+
+  private PrimeSieve sieve;
+
+  @Setup
+  public void setUp() {
+    sieve = createSieve();
+  }
+
+  @Benchmark
+  public PrimeSieve construct() {
+    return createSieve();
+  }
+
+  /**
+   * Walks through all prime numbers with `nextPrime`.
+   */
+  @Benchmark
+  public int nextPrime() {
+    int last = 0;
+    for (int p = sieve.nextPrime(2); p != 0; p = sieve.nextPrime(p)) {
+      last = p;
+    }
+    return last;
+  }
+
+  @Benchmark
+  public List<Integer> toList() {
+    return sieve.toList();
+  }
+
+  private PrimeSieve createSieve() {
+    switch (mode) {
+      case "boolean":
+        return new PrimeSieve(size);
+      case "compact":
+        return new PrimeSieve(size, true);
+      case "parallel":
+        return new PrimeSieve(size, true,
+            Runtime.getRuntime().availableProcessors());
+      case "indexed":
+        return new PrimeSieve(size, true).buildIndex();
+      default:
+        throw new IllegalArgumentException("Unknown mode " + mode);
+    }
+  }
+}
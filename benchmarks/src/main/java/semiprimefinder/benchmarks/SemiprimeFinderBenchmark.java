@@ -0,0 +1,76 @@
+package semiprimefinder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import semiprimefinder.InverseSemiprimeFinder;
+import semiprimefinder.PrimeSieve;
+import semiprimefinder.SemiprimeFinder;
+import semiprimefinder.SemiprimeResults;
+
+/**
+ * The whole search of `SemiprimeFinder`, with and without the time for the
+ * sieve, at several sizes, compared to `InverseSemiprimeFinder`.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SemiprimeFinderBenchmark {
+
+  @Param({ "100000", "1000000", "10000000" })
+  private int size;
+
+  /** The number of threads; 0 stands for all available processors */
+  @Param({ "1", "0" })
+  private int threads;
+
+  private int parallelism;
+
+  private PrimeSieve sieve;
+
+  @Setup
+  public void setUp() {
+    parallelism = threads > 0 ? threads
+        : Runtime.getRuntime().availableProcessors();
+    sieve = new PrimeSieve(size, true, parallelism).buildIndex();
+  }
+
+  /**
+   * Sieves and searches all semiprimes up to `size`.
+   */
+  @Benchmark
+  public SemiprimeResults search() {
+    return new SemiprimeFinder(size, parallelism).getResults();
+  }
+
+  /**
+   * Searches all semiprimes up to `size` with a sieve that exists already.
+   */
+  @Benchmark
+  public SemiprimeResults searchWithSieve() {
+    return new SemiprimeFinder(sieve, parallelism).getResults();
+  }
+
+  /**
+   * Classifies the neighbors of all prime numbers up to `size`, which are
+   * sieved window by window.
+   */
+  @Benchmark
+  public SemiprimeResults inverse() {
+    return new InverseSemiprimeFinder(size, parallelism).getResults();
+  }
+}
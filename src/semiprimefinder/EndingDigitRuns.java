@@ -0,0 +1,124 @@
+package semiprimefinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Histogram of runs of consecutive prime numbers with the same ending digit,
+ * as found by `PrimeNumberEvaluator.countConsecutiveEndingDigits`. Besides the
+ * number of runs per length, up to `maxSamples` runs of each length are kept
+ * (the first ones in ascending order), so the memory does not depend on the
+ * number of primes that are scanned.
+ *
+ * Lengths are counted like in `PrimeNumberEvaluator.findConsecutiveEndingDigits`:
+ * the prime at which the ending digit changes does not belong to the run.
+ */
+public class EndingDigitRuns {
+
+  private final int minLength;
+  private final int maxSamples;
+
+  /** Number of runs by their length */
+  private long[] counts = new long[16];
+
+  /** Samples by the length of the runs */
+  private List<List<int[]>> samples = new ArrayList<List<int[]>>();
+
+  /**
+   * Creates an empty histogram.
+   * @param minLength The minimum length of runs to count
+   * @param maxSamples The maximum number of runs to keep per length
+   */
+  EndingDigitRuns(int minLength, int maxSamples) {
+    this.minLength = minLength;
+    this.maxSamples = maxSamples;
+  }
+
+  /**
+   * Counts the run primes[from] to primes[to - 1] if it is long enough and
+   * keeps it as sample if there are less than `maxSamples` of its length.
+   * @param primes Array containing the run
+   * @param from The index of the first prime of the run
+   * @param to The index after the last prime of the run
+   */
+  void addRun(int[] primes, int from, int to) {
+    int length = to - from;
+    if (length < minLength) {
+      return;
+    }
+    if (length >= counts.length) {
+      counts = Arrays.copyOf(counts, Math.max(length + 1, 2 * counts.length));
+    }
+    ++counts[length];
+    if (maxSamples > 0) {
+      List<int[]> runs = samplesOf(length);
+      if (runs.size() < maxSamples) {
+        runs.add(Arrays.copyOfRange(primes, from, to));
+      }
+    }
+  }
+
+  /**
+   * Adds the runs of `other`, which come after all runs of this object.
+   * @param other The runs to add
+   */
+  void addAll(EndingDigitRuns other) {
+    for (int length = 0; length < other.counts.length; ++length) {
+      if (other.counts[length] == 0) {
+        continue;
+      }
+      if (length >= counts.length) {
+        counts = Arrays.copyOf(counts, other.counts.length);
+      }
+      counts[length] += other.counts[length];
+      List<int[]> runs = samplesOf(length);
+      for (int[] run : other.getSamples(length)) {
+        if (runs.size() >= maxSamples) {
+          break;
+        }
+        runs.add(run);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of runs with the given length.
+   * @param length The length of the runs
+   * @return The number of runs, 0 for lengths below the minimum length
+   */
+  public long getCount(int length) {
+    return length < counts.length ? counts[length] : 0;
+  }
+
+  /**
+   * Returns the length of the longest run that was found.
+   * @return The maximum length, or 0 if no run was counted
+   */
+  public int getMaxLength() {
+    for (int length = counts.length - 1; length > 0; --length) {
+      if (counts[length] > 0)
+        return length;
+    }
+    return 0;
+  }
+
+  /**
+   * Returns the first runs with the given length.
+   * @param length The length of the runs
+   * @return Unmodifiable list with up to `maxSamples` runs in ascending order
+   */
+  public List<int[]> getSamples(int length) {
+    return length < samples.size()
+        ? Collections.unmodifiableList(samples.get(length))
+        : Collections.<int[]>emptyList();
+  }
+
+  private List<int[]> samplesOf(int length) {
+    while (samples.size() <= length) {
+      samples.add(new ArrayList<int[]>());
+    }
+    return samples.get(length);
+  }
+}
@@ -0,0 +1,273 @@
+package semiprimefinder;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds the same semiprimes as `SemiprimeFinder`, but the other way around:
+ * instead of generating all squarefree products and checking their neighbors,
+ * it factors p-1 and p+1 of every prime number p with a table of smallest
+ * prime factors and keeps them if they are squarefree.
+ *
+ * For an odd prime p, both neighbors are even, so only the odd half of them
+ * needs to be factored: the table covers the odd numbers up to (size + 1) / 2
+ * and stores the smallest prime factor of the composite ones, which is below
+ * 2^16, in a char. It is filled with a linear sieve.
+ */
+public class InverseSemiprimeFinder {
+
+  /** Number of prime numbers a task handles without splitting */
+  private static final int LEAF_RANGE_THRESHOLD = 1 << 16;
+
+  /** The highest number that is being investigated */
+  private int size;
+
+  /** Smallest factors must be below this bound, like in `SemiprimeFinder` */
+  private int upperBound;
+
+  /** The prime numbers to classify */
+  private PrimeSieve primeSieve;
+
+  /**
+   * Smallest prime factor of each odd number n up to (size + 1) / 2 at index
+   * n >> 1, or 0 if n is a prime number (or 1).
+   */
+  private char[] smallestFactors;
+
+  /** Collects the factors for each semiprime that is found */
+  private SemiprimeResults.Builder builder;
+
+  /** The results, built from `builder` */
+  private SemiprimeResults semiprimes;
+
+  /**
+   * Constructs a new InverseSemiprimeFinder object and generates the
+   * semiprime information.
+   * @param size The highest number to check
+   */
+  public InverseSemiprimeFinder(int size) {
+    this(size, 1);
+  }
+
+  /**
+   * Constructs a new InverseSemiprimeFinder object and generates the
+   * semiprime information, classifying the prime numbers with `parallelism`
+   * threads.
+   * @param size The highest number to check
+   * @param parallelism The number of threads to use
+   */
+  public InverseSemiprimeFinder(int size, int parallelism) {
+    this(new PrimeSieve(size, true, parallelism), parallelism);
+  }
+
+  /**
+   * Constructs a new InverseSemiprimeFinder object for the size of the given
+   * sieve and generates the semiprime information with `parallelism` threads.
+   * @param primeSieve Sieve up to the highest number to check
+   * @param parallelism The number of threads to use
+   */
+  public InverseSemiprimeFinder(PrimeSieve primeSieve, int parallelism) {
+    this.size = primeSieve.getSize();
+    this.upperBound = (int) Math.sqrt(size);
+    this.primeSieve = primeSieve;
+    fillSmallestFactors(Math.max(3, (int) (((long) size + 1) / 2)));
+    ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    try {
+      builder = classifyRange(2, size, pool);
+    } finally {
+      if (pool != null)
+        pool.shutdown();
+    }
+  }
+
+  public static void main(String[] args) {
+    int size = 10_000_000;
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    PrimeSieve sieve = new PrimeSieve(size, true, parallelism).buildIndex();
+
+    long start = System.nanoTime();
+    SemiprimeResults enumerated = new SemiprimeFinder(sieve, parallelism)
+        .getResults();
+    long enumerationTime = System.nanoTime() - start;
+    start = System.nanoTime();
+    SemiprimeResults inverse = new InverseSemiprimeFinder(sieve, parallelism)
+        .getResults();
+    long inverseTime = System.nanoTime() - start;
+
+    System.out.println("Semiprimes up to " + size + ": " + inverse.size());
+    System.out.println("Same as SemiprimeFinder: "
+        + enumerated.asMap().equals(inverse.asMap()));
+    System.out.println("SemiprimeFinder: " + enumerationTime / 1_000_000
+        + " ms, InverseSemiprimeFinder: " + inverseTime / 1_000_000 + " ms");
+  }
+
+  public PrimeSieve getPrimeSieve() {
+    return primeSieve;
+  }
+
+  /**
+   * Returns the semiprimes that were found, sorted in ascending order.
+   * @return The semiprimes and their factors
+   */
+  public SemiprimeResults getResults() {
+    if (semiprimes == null) {
+      semiprimes = builder.build();
+    }
+    return semiprimes;
+  }
+
+  /**
+   * Returns an unmodifiable map view of `getResults()`.
+   * @return Map of the semiprimes to their factors
+   */
+  public Map<Integer, Sequence> getSemiprimes() {
+    return getResults().asMap();
+  }
+
+  /**
+   * Classifies the prime numbers in [from, to].
+   * @param from The lowest number to examine
+   * @param to The highest number to examine
+   * @param pool The pool to run the tasks in, or null to classify the primes
+   *        in the current thread
+   * @return Builder with the semiprimes in [from, to]
+   */
+  private SemiprimeResults.Builder classifyRange(int from, int to,
+      ForkJoinPool pool) {
+    SemiprimeResults.Builder results = new SemiprimeResults.Builder();
+    ClassifyTask task = new ClassifyTask(from, to, results);
+    if (pool != null) {
+      pool.invoke(task);
+    } else {
+      task.compute();
+    }
+    return results;
+  }
+
+  /**
+   * Fills `smallestFactors` up to `limit` with a linear sieve on the odd
+   * numbers: every odd composite number is crossed off exactly once, by its
+   * smallest prime factor. Only prime numbers up to sqrt(limit) can be the
+   * smallest factor of a composite number up to `limit`, so only those are
+   * kept in a list.
+   * @param limit The highest number to cover
+   */
+  private void fillSmallestFactors(int limit) {
+    smallestFactors = new char[(limit >> 1) + 1];
+    int sqrtLimit = (int) Math.sqrt(limit);
+    int[] primes = new int[(sqrtLimit >> 1) + 1];
+    int primeCount = 0;
+    for (int i = 3; i <= limit; i += 2) {
+      int smallestFactor = smallestFactors[i >> 1];
+      if (smallestFactor == 0) {
+        smallestFactor = i;
+        if (i <= sqrtLimit) {
+          primes[primeCount++] = i;
+        }
+      }
+      for (int k = 0; k < primeCount; ++k) {
+        int prime = primes[k];
+        if (prime > smallestFactor || (long) i * prime > limit) {
+          break;
+        }
+        smallestFactors[(i * prime) >> 1] = (char) prime;
+      }
+    }
+  }
+
+  /**
+   * Factors `n` if it is squarefree.
+   * @param n The number to factor, at most `size` + 1
+   * @param factors Array to write the prime factors to in ascending order
+   * @return The number of factors, or -1 if `n` is not squarefree or smaller
+   *         than 2
+   */
+  private int factorSquarefree(int n, int[] factors) {
+    if (n < 2) {
+      return -1;
+    }
+    int count = 0;
+    if ((n & 1) == 0) {
+      n >>= 1;
+      if ((n & 1) == 0) {
+        return -1;
+      }
+      factors[count++] = 2;
+    }
+    int lastFactor = 0;
+    while (n > 1) {
+      int factor = smallestFactors[n >> 1];
+      if (factor == 0) {
+        factor = n;
+      }
+      if (factor == lastFactor) {
+        return -1;
+      }
+      factors[count++] = factor;
+      lastFactor = factor;
+      n /= factor;
+    }
+    return count;
+  }
+
+  /**
+   * Adds `prime` to `results` if `neighbor` = `prime` - `sign` is a
+   * combination that `SemiprimeFinder` generates: squarefree, not bigger than
+   * `size` and with a smallest factor below `upperBound`.
+   */
+  private void classify(int prime, int sign, int neighbor, int[] factors,
+      SemiprimeResults.Builder results) {
+    if (neighbor > size) {
+      return;
+    }
+    int factorCount = factorSquarefree(neighbor, factors);
+    if (factorCount > 0 && factors[0] < upperBound) {
+      results.add(prime, sign, factors, factorCount);
+    }
+  }
+
+  /**
+   * Fork-join task classifying the prime numbers in [from, to].
+   */
+  private class ClassifyTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+
+    /** The builder to merge the semiprimes into */
+    private final SemiprimeResults.Builder target;
+
+    ClassifyTask(int from, int to, SemiprimeResults.Builder target) {
+      this.from = from;
+      this.to = to;
+      this.target = target;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > LEAF_RANGE_THRESHOLD * 16 && getPool() != null) {
+        int middle = (int) (((long) from + to) >>> 1);
+        invokeAll(new ClassifyTask(from, middle, target),
+            new ClassifyTask(middle + 1, to, target));
+        return;
+      }
+
+      // Every prime is classified once, so the order in which the tasks add
+      // their semiprimes does not matter
+      SemiprimeResults.Builder results = new SemiprimeResults.Builder();
+      int[] factors = new int[SemiprimeFinder.MAX_FACTORS];
+      primeSieve.iterator(from, to).forEachRemaining((int prime) -> {
+        classify(prime, 1, prime - 1, factors, results);
+        if (prime < size) {
+          classify(prime, -1, prime + 1, factors, results);
+        }
+      });
+      synchronized (target) {
+        target.addAll(results);
+      }
+    }
+  }
+}
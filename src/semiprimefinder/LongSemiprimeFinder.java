@@ -0,0 +1,182 @@
+package semiprimefinder;
+
+import java.util.Arrays;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Version of `SemiprimeFinder` for sizes beyond the int range, finding the
+ * same semiprimes for sizes that are within it.
+ *
+ * Every factor of a combination but the biggest one is smaller than sqrt(size),
+ * so a small sieve is enough to generate the combinations: it covers all
+ * factors up to `factorLimit` and a segmented sieve supplies bigger last
+ * factors. Instead of sieving up to `size`, the numbers next to each
+ * combination are tested with the deterministic Miller-Rabin test.
+ */
+public class LongSemiprimeFinder {
+
+  /** Highest factor covered by `factorSieve`, unless sqrt(size) is bigger */
+  private static final int FACTOR_SIEVE_LIMIT = 1 << 26;
+
+  /**
+   * Maximum number of distinct prime factors of a long: the product of the
+   * first 16 prime numbers is already bigger than Long.MAX_VALUE.
+   */
+  private static final int MAX_FACTORS = 15;
+
+  /** The highest number that is being investigated */
+  private long size;
+
+  /** Sieve with index for all factors up to `factorLimit` */
+  private PrimeSieve factorSieve;
+
+  /** The highest number covered by `factorSieve` */
+  private long factorLimit;
+
+  /**
+   * Sieve for last factors bigger than `factorLimit`, or null if there are
+   * none
+   */
+  private SegmentedPrimeSieve largeFactorSieve;
+
+  /**
+   * Constructs a new LongSemiprimeFinder object. The search is done when
+   * calling `search` or `getSemiprimes`.
+   * @param size The highest number to check, smaller than 2^62
+   */
+  public LongSemiprimeFinder(long size) {
+    if (size < 0 || size >= 1L << 62) {
+      throw new IllegalArgumentException("Invalid size " + size);
+    }
+    this.size = size;
+    factorLimit = Math.max(SegmentedPrimeSieve.sqrt(size),
+        Math.min(size / 2, FACTOR_SIEVE_LIMIT));
+    factorSieve = new PrimeSieve((int) factorLimit, true).buildIndex();
+    if (size / 2 > factorLimit) {
+      largeFactorSieve = new SegmentedPrimeSieve(factorLimit + 1, size / 2);
+    }
+  }
+
+  public static void main(String[] args) {
+    long size = 1_000_000_000L;
+    LongSemiprimeFinder finder = new LongSemiprimeFinder(size);
+    System.out.println("Semiprimes up to 10^9: " + finder.countSemiprimes());
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * Searches all semiprimes up to `size` and passes them to `consumer`. They
+   * are not passed in any particular order, but every semiprime only once.
+   * @param consumer The consumer to pass the semiprimes to
+   */
+  public void search(LongSemiprimeConsumer consumer) {
+    long upperBound = SegmentedPrimeSieve.sqrt(size);
+    long[] factors = new long[MAX_FACTORS];
+    for (int i = 0; i < factorSieve.primeCount(); ++i) {
+      int prime = factorSieve.primeAt(i);
+      if (prime >= upperBound) {
+        break;
+      }
+      factors[0] = prime;
+      registerSemiprime(prime, factors, 1, consumer);
+      saveCombinations(prime, i + 1, factors, 1, consumer);
+    }
+  }
+
+  /**
+   * Searches all semiprimes and returns them sorted. Only suitable for sizes
+   * whose results fit into memory; use `search` otherwise.
+   * @return The semiprimes and their factors
+   */
+  public SortedMap<Long, LongSequence> getSemiprimes() {
+    SortedMap<Long, LongSequence> semiprimes = new TreeMap<Long, LongSequence>();
+    search((prime, sign, factors, factorCount) -> semiprimes.put(prime,
+        new LongSequence(sign, Arrays.copyOf(factors, factorCount))));
+    return semiprimes;
+  }
+
+  /**
+   * Searches all semiprimes and returns how many there are.
+   * @return The number of semiprimes up to `size`
+   */
+  public long countSemiprimes() {
+    long[] count = { 0 };
+    search((prime, sign, factors, factorCount) -> ++count[0]);
+    return count[0];
+  }
+
+  /**
+   * Handles all combinations consisting of the factors of `start` and at least
+   * one more, bigger factor. Unlike `SemiprimeFinder`, all lengths are handled
+   * in one pass.
+   * @param start The number to multiply the other factors with
+   * @param primeIndex The index of the smallest prime number in `factorSieve`
+   *        that may be used as a new factor
+   * @param factors Stack of the individual factors of `start`
+   * @param depth The number of factors on the stack
+   * @param consumer The consumer to pass the semiprimes to
+   */
+  private void saveCombinations(long start, int primeIndex, long[] factors,
+      int depth, LongSemiprimeConsumer consumer) {
+    long maxFactor = size / start;
+    int primeCount = factorSieve.primeCount();
+    for (int i = primeIndex; i < primeCount; ++i) {
+      long prime = factorSieve.primeAt(i);
+      if (prime > maxFactor) {
+        return;
+      }
+      long newStart = start * prime;
+      factors[depth] = prime;
+      registerSemiprime(newStart, factors, depth + 1, consumer);
+
+      long nextMaxFactor = size / newStart;
+      boolean canExtend = i + 1 < primeCount
+          ? factorSieve.primeAt(i + 1) <= nextMaxFactor
+          : nextMaxFactor > factorLimit;
+      if (canExtend) {
+        saveCombinations(newStart, i + 1, factors, depth + 1, consumer);
+      }
+    }
+
+    // Factors beyond `factorLimit` are bigger than sqrt(size) and can
+    // therefore only be the last factor
+    if (largeFactorSieve != null && maxFactor > factorLimit) {
+      largeFactorSieve.forEachPrime(factorLimit + 1, maxFactor, prime -> {
+        factors[depth] = prime;
+        registerSemiprime(start * prime, factors, depth + 1, consumer);
+      });
+    }
+  }
+
+  /**
+   * Checks whether `realSemiprime`+1 and/or `realSemiprime`-1 are prime numbers
+   * and passes them to `consumer` if so.
+   * @param realSemiprime The number to investigate with -1 / +1
+   * @param factors Stack with the factors of `realSemiprime`
+   * @param depth The number of factors on the stack
+   * @param consumer The consumer to pass the semiprimes to
+   */
+  private void registerSemiprime(long realSemiprime, long[] factors, int depth,
+      LongSemiprimeConsumer consumer) {
+    if ((realSemiprime & 1) == 1) {
+      // Both neighbors are even, so only 2 can be a prime
+      if (realSemiprime == 3)
+        consumer.accept(2, -1, factors, depth);
+      return;
+    }
+    if (realSemiprime + 1 <= size && isPrime(realSemiprime + 1))
+      consumer.accept(realSemiprime + 1, 1, factors, depth);
+    if (isPrime(realSemiprime - 1))
+      consumer.accept(realSemiprime - 1, -1, factors, depth);
+  }
+
+  private boolean isPrime(long n) {
+    return n <= factorLimit ? factorSieve.isPrime((int) n)
+        : MillerRabin.isPrime(n);
+  }
+
+}
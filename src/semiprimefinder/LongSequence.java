@@ -0,0 +1,60 @@
+package semiprimefinder;
+
+import java.util.Arrays;
+
+/**
+ * Equivalent of `Sequence` for factors that may exceed the int range.
+ */
+public class LongSequence {
+
+  private final int sign; // 1 or -1
+  private final long[] factors;
+
+  public LongSequence(int sign, long[] factors) {
+    this.sign = sign;
+    this.factors = factors;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof LongSequence))
+      return false;
+    else if (other == this)
+      return true;
+
+    LongSequence otherSequence = (LongSequence) other;
+    return this.sign == otherSequence.sign
+        && Arrays.equals(this.factors, otherSequence.factors);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * sign + Arrays.hashCode(factors);
+  }
+
+  @Override
+  public String toString() {
+    return (sign == 1 ? "+1 " : "-1 ") + Arrays.toString(factors);
+  }
+
+  public int getSign() {
+    return sign;
+  }
+
+  /**
+   * Returns a copy of the factors in ascending order.
+   * @return The factors
+   */
+  public long[] getFactors() {
+    return factors.clone();
+  }
+
+  public int getFactorCount() {
+    return factors.length;
+  }
+
+  public long getFactor(int index) {
+    return factors[index];
+  }
+
+}
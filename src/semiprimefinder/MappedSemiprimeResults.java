@@ -0,0 +1,231 @@
+package semiprimefinder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Read-only access to results written by `SemiprimeResultsFile`. The file is
+ * memory-mapped, so only the pages that are accessed are loaded and nothing
+ * is copied into the heap. Offers the same index-based methods as
+ * `SemiprimeResults`.
+ */
+public class MappedSemiprimeResults implements SemiprimeTable {
+
+  private final int count;
+  private final int maxFactorCount;
+  private final long factorTotal;
+  private final MappedInts keys;
+  private final MappedInts offsets;
+  private final MappedInts factors;
+  private final MappedByteBuffer signs;
+
+  private MappedSemiprimeResults(FileChannel channel) throws IOException {
+    long fileSize = channel.size();
+    if (fileSize < SemiprimeResultsFile.HEADER_SIZE) {
+      throw new IOException("Not a semiprime results file");
+    }
+    ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+        SemiprimeResultsFile.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    if (header.getInt() != SemiprimeResultsFile.MAGIC) {
+      throw new IOException("Not a semiprime results file");
+    }
+    int version = header.getInt();
+    if (version != SemiprimeResultsFile.VERSION) {
+      throw new IOException("Unsupported version " + version);
+    }
+    count = header.getInt();
+    maxFactorCount = header.getInt();
+    factorTotal = header.getLong();
+    long keysPosition = header.getLong();
+    long offsetsPosition = header.getLong();
+    long factorsPosition = header.getLong();
+    long signsPosition = header.getLong();
+    // Check the sections against the file before mapping them, as accessing
+    // a mapping beyond the end of the file crashes instead of throwing
+    if (count < 0 || maxFactorCount < 0 || factorTotal < 0
+        || factorTotal > Integer.MAX_VALUE
+        || keysPosition < SemiprimeResultsFile.HEADER_SIZE
+        || offsetsPosition < keysPosition + 4L * count
+        || factorsPosition < offsetsPosition + 4L * (count + 1L)
+        || signsPosition < factorsPosition + 4L * factorTotal
+        || signsPosition + count != fileSize) {
+      throw new IOException("Invalid header or file length");
+    }
+    keys = new MappedInts(channel, keysPosition, count);
+    offsets = new MappedInts(channel, offsetsPosition, count + 1L);
+    factors = new MappedInts(channel, factorsPosition, factorTotal);
+    signs = channel.map(FileChannel.MapMode.READ_ONLY, signsPosition, count);
+  }
+
+  /**
+   * Opens and maps a file written by `SemiprimeResultsFile.write`. The mapping
+   * remains valid after the file channel has been closed.
+   * @param filename The file to read
+   * @return The mapped results
+   * @throws IOException If the file cannot be read or has an invalid format
+   */
+  public static MappedSemiprimeResults open(String filename)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filename),
+        StandardOpenOption.READ)) {
+      return new MappedSemiprimeResults(channel);
+    }
+  }
+
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Returns the index of the given semiprime with a binary search.
+   * @param prime The semiprime to look up
+   * @return The index of the entry, or a negative number if there is none
+   */
+  public int indexOf(int prime) {
+    int index = lowerBound(prime);
+    return index < count && keys.get(index) == prime ? index : -index - 1;
+  }
+
+  public boolean contains(int prime) {
+    return indexOf(prime) >= 0;
+  }
+
+  /**
+   * Returns the factors of the given semiprime.
+   * @param prime The semiprime to look up
+   * @return Sequence with a copy of the factors, or null if there is none
+   */
+  public Sequence get(int prime) {
+    int index = indexOf(prime);
+    return index < 0 ? null : sequenceAt(index);
+  }
+
+  public int keyAt(int index) {
+    return keys.get(index);
+  }
+
+  public int signAt(int index) {
+    return signs.get(index);
+  }
+
+  public int factorCount(int index) {
+    return offsets.get(index + 1) - offsets.get(index);
+  }
+
+  public int factorAt(int index, int factorIndex) {
+    return factors.get((long) offsets.get(index) + factorIndex);
+  }
+
+  public int maxFactorCount() {
+    return maxFactorCount;
+  }
+
+  /**
+   * Returns the number of factors of all entries together.
+   * @return The length of the factors section
+   */
+  public long totalFactorCount() {
+    return factorTotal;
+  }
+
+  /**
+   * Returns a Sequence with a copy of the factors of the given entry.
+   * @param index The index of the entry
+   * @return The sequence of the entry
+   */
+  public Sequence sequenceAt(int index) {
+    int factorCount = factorCount(index);
+    List<Integer> factorList = new ArrayList<Integer>(factorCount);
+    for (int i = 0; i < factorCount; ++i) {
+      factorList.add(factorAt(index, i));
+    }
+    return new Sequence(signAt(index), factorList);
+  }
+
+  /**
+   * Returns the index of the first semiprime that is equal to or bigger than
+   * `prime`.
+   * @param prime The number to search for
+   * @return The index, or `size()` if all semiprimes are smaller
+   */
+  public int lowerBound(int prime) {
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (keys.get(middle) < prime) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Passes the index of every semiprime in [from, to] to `action`, in
+   * ascending order of the semiprimes.
+   * @param from The smallest semiprime to include
+   * @param to The biggest semiprime to include
+   * @param action The action to perform with each index
+   */
+  public void forEachIndex(int from, int to, IntConsumer action) {
+    for (int i = lowerBound(from); i < count && keys.get(i) <= to; ++i) {
+      action.accept(i);
+    }
+  }
+
+  /**
+   * Loads all entries into a heap-based SemiprimeResults object.
+   * @return The results
+   */
+  public SemiprimeResults toResults() {
+    SemiprimeResults.Builder builder = new SemiprimeResults.Builder();
+    int[] factorStack = new int[maxFactorCount];
+    for (int i = 0; i < count; ++i) {
+      int factorCount = factorCount(i);
+      for (int j = 0; j < factorCount; ++j) {
+        factorStack[j] = factorAt(i, j);
+      }
+      builder.add(keyAt(i), signAt(i), factorStack, factorCount);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Int section of the file, mapped in chunks as one mapping cannot exceed
+   * 2 GB.
+   */
+  private static class MappedInts {
+
+    private static final int CHUNK_SHIFT = 28;
+    private static final long CHUNK_INTS = 1L << CHUNK_SHIFT;
+
+    private final IntBuffer[] chunks;
+
+    MappedInts(FileChannel channel, long position, long length)
+        throws IOException {
+      chunks = new IntBuffer[(int) ((length + CHUNK_INTS - 1) / CHUNK_INTS)];
+      for (int i = 0; i < chunks.length; ++i) {
+        long chunkLength = Math.min(CHUNK_INTS, length - i * CHUNK_INTS);
+        chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+            position + 4 * i * CHUNK_INTS, 4 * chunkLength)
+            .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+      }
+    }
+
+    int get(long index) {
+      return chunks[(int) (index >>> CHUNK_SHIFT)]
+          .get((int) (index & (CHUNK_INTS - 1)));
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package semiprimefinder;
+
+/**
+ * Deterministic Miller-Rabin primality test for all positive long numbers.
+ * The modular multiplications are done in Montgomery form with R = 2^64, so no
+ * division is needed apart from the setup for each tested number.
+ */
+public final class MillerRabin {
+
+  /** Bases for which the test is deterministic for n < 3,215,031,751 */
+  private static final long[] BASES_32 = { 2, 3, 5, 7 };
+
+  /** Bases for which the test is deterministic for n < 3,474,749,660,383 */
+  private static final long[] BASES_41 = { 2, 3, 5, 7, 11, 13 };
+
+  /** Bases for which the test is deterministic for all n < 2^64 (Jim Sinclair) */
+  private static final long[] BASES_64 = { 2, 325, 9375, 28178, 450775,
+      9780504, 1795265022 };
+
+  /** Small primes to check by trial division before running the test */
+  private static final int[] SMALL_PRIMES = { 2, 3, 5, 7, 11, 13, 17, 19, 23,
+      29, 31, 37 };
+
+  private MillerRabin() {
+  }
+
+  public static void main(String[] args) {
+    long n = 1_000_000_000_000L;
+    int count = 0;
+    for (long i = n; i <= n + 1_000_000; ++i) {
+      if (isPrime(i))
+        ++count;
+    }
+    System.out.println("Primes 10^12 <= n <= 10^12 + 10^6: " + count);
+  }
+
+  /**
+   * Indicates whether or not `n` is a prime number.
+   * @param n The number to examine
+   * @return True if it is a prime number, false otherwise
+   */
+  public static boolean isPrime(long n) {
+    if (n < 2) {
+      return false;
+    }
+    for (int prime : SMALL_PRIMES) {
+      if (n % prime == 0) {
+        return n == prime;
+      }
+    }
+    if (n < 37L * 37) {
+      return true;
+    }
+
+    // n - 1 = d * 2^s with d odd
+    long d = n - 1;
+    int s = Long.numberOfTrailingZeros(d);
+    d >>= s;
+
+    long inverse = inverse(n);
+    long one = Long.remainderUnsigned(-n, n); // R mod n
+    long minusOne = n - one;
+
+    long[] bases = n < 3_215_031_751L ? BASES_32
+        : n < 3_474_749_660_383L ? BASES_41 : BASES_64;
+    for (long base : bases) {
+      long a = base % n;
+      if (a == 0) {
+        continue;
+      }
+      long x = pow(toMontgomery(a, one, n), d, one, n, inverse);
+      if (x == one || x == minusOne) {
+        continue;
+      }
+      boolean isWitness = true;
+      for (int i = 1; i < s && isWitness; ++i) {
+        x = multiply(x, x, n, inverse);
+        isWitness = x != minusOne;
+      }
+      if (isWitness) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns n^-1 mod 2^64 for odd n with Newton's iteration; every step doubles
+   * the number of correct bits.
+   */
+  static long inverse(long n) {
+    long inverse = n; // correct to 3 bits as n * n == 1 mod 8
+    for (int i = 0; i < 5; ++i) {
+      inverse *= 2 - n * inverse;
+    }
+    return inverse;
+  }
+
+  /**
+   * Montgomery multiplication: returns a * b * R^-1 mod n for a, b < n < 2^63.
+   */
+  static long multiply(long a, long b, long n, long inverse) {
+    long low = a * b;
+    long high = Math.multiplyHigh(a, b); // a, b are positive
+    long m = low * inverse;
+    // Unsigned high word of m * n; the low word equals `low`
+    long mHigh = Math.multiplyHigh(m, n) + ((m >> 63) & n);
+    long result = high - mHigh;
+    return result < 0 ? result + n : result;
+  }
+
+  /**
+   * Returns a * R mod n for 0 <= a < n by doubling and adding R mod n, which is
+   * cheap for the small bases.
+   */
+  private static long toMontgomery(long a, long one, long n) {
+    long result = 0;
+    for (int bit = 63 - Long.numberOfLeadingZeros(a); bit >= 0; --bit) {
+      result = addMod(result, result, n);
+      if ((a >>> bit & 1) == 1) {
+        result = addMod(result, one, n);
+      }
+    }
+    return result;
+  }
+
+  private static long pow(long base, long exponent, long one, long n,
+      long inverse) {
+    long result = one;
+    while (exponent > 0) {
+      if ((exponent & 1) == 1) {
+        result = multiply(result, base, n, inverse);
+      }
+      base = multiply(base, base, n, inverse);
+      exponent >>= 1;
+    }
+    return result;
+  }
+
+  static long addMod(long a, long b, long n) {
+    long sum = a + b; // may exceed Long.MAX_VALUE as unsigned number
+    return Long.compareUnsigned(sum, n) >= 0 ? sum - n : sum;
+  }
+}
@@ -0,0 +1,219 @@
+package semiprimefinder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes ASCII text and numbers to a channel through one large, reusable
+ * buffer. Numbers are formatted directly into the buffer, so no String is
+ * created per number or per line.
+ */
+public class NumberOutput implements Closeable {
+
+  /** Default size of the buffer, which is written in one go once it is full */
+  public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+  private static final byte[] LINE_SEPARATOR = System.lineSeparator()
+      .getBytes();
+
+  private final WritableByteChannel channel;
+  private final byte[] bytes;
+  private final ByteBuffer buffer;
+  private int position;
+
+  /** Scratch space for the digits of a number, which come in reverse order */
+  private final byte[] digits = new byte[20];
+
+  public NumberOutput(WritableByteChannel channel) {
+    this(channel, DEFAULT_BUFFER_SIZE);
+  }
+
+  public NumberOutput(WritableByteChannel channel, int bufferSize) {
+    this.channel = channel;
+    this.bytes = new byte[Math.max(bufferSize, 64)];
+    this.buffer = ByteBuffer.wrap(bytes);
+  }
+
+  /**
+   * Creates a NumberOutput object writing to the given file, which is
+   * replaced if it exists.
+   * @param filename The file to write to
+   * @return The output
+   * @throws IOException If the file cannot be opened
+   */
+  public static NumberOutput toFile(String filename) throws IOException {
+    return new NumberOutput(FileChannel.open(Paths.get(filename),
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE));
+  }
+
+  /**
+   * Creates a NumberOutput object writing to the given stream, which is closed
+   * along with the output.
+   * @param out The stream to write to
+   * @return The output
+   */
+  public static NumberOutput toStream(OutputStream out) {
+    return new NumberOutput(Channels.newChannel(out));
+  }
+
+  /**
+   * Creates a NumberOutput object writing to `System.out` in large chunks.
+   * Closing the output flushes `System.out` but does not close it.
+   * @return The output
+   */
+  public static NumberOutput toStandardOutput() {
+    WritableByteChannel out = Channels.newChannel(System.out);
+    return new NumberOutput(new WritableByteChannel() {
+      @Override
+      public int write(ByteBuffer src) throws IOException {
+        return out.write(src);
+      }
+
+      @Override
+      public boolean isOpen() {
+        return out.isOpen();
+      }
+
+      @Override
+      public void close() {
+        System.out.flush();
+      }
+    });
+  }
+
+  public NumberOutput write(int value) throws IOException {
+    return write((long) value);
+  }
+
+  public NumberOutput write(long value) throws IOException {
+    ensureCapacity(digits.length + 1);
+    if (value < 0) {
+      bytes[position++] = '-';
+      if (value == Long.MIN_VALUE) {
+        // Cannot be negated; the last digit is 8
+        write(-(value / 10));
+        bytes[position++] = '8';
+        return this;
+      }
+      value = -value;
+    }
+    int length = 0;
+    do {
+      digits[length++] = (byte) ('0' + value % 10);
+      value /= 10;
+    } while (value != 0);
+    while (length > 0) {
+      bytes[position++] = digits[--length];
+    }
+    return this;
+  }
+
+  /**
+   * Writes `value` right-aligned in a column of `width` characters, i.e.
+   * preceded by as many spaces as it is shorter. Values that are wider than
+   * the column are written without padding.
+   * @param value The number to write
+   * @param width The width of the column
+   * @return This object
+   * @throws IOException If the buffer could not be written
+   */
+  public NumberOutput writePadded(long value, int width) throws IOException {
+    int length = value < 0 ? 2 : 1;
+    for (long rest = value / 10; rest != 0; rest /= 10) {
+      ++length;
+    }
+    return repeat(' ', width - length).write(value);
+  }
+
+  /**
+   * Writes an ASCII character.
+   * @param c The character to write
+   * @return This object
+   * @throws IOException If the buffer could not be written
+   */
+  public NumberOutput write(char c) throws IOException {
+    ensureCapacity(1);
+    bytes[position++] = (byte) c;
+    return this;
+  }
+
+  /**
+   * Writes a String consisting of ASCII characters only.
+   * @param s The String to write
+   * @return This object
+   * @throws IOException If the buffer could not be written
+   */
+  public NumberOutput write(String s) throws IOException {
+    for (int i = 0; i < s.length(); ++i) {
+      write(s.charAt(i));
+    }
+    return this;
+  }
+
+  /**
+   * Writes the ASCII character `c` `times` times.
+   * @param c The character to write
+   * @param times The number of times to write it; nothing is written if it is
+   *        not positive
+   * @return This object
+   * @throws IOException If the buffer could not be written
+   */
+  public NumberOutput repeat(char c, int times) throws IOException {
+    for (int i = 0; i < times; ++i) {
+      write(c);
+    }
+    return this;
+  }
+
+  /**
+   * Writes the line separator of the platform, like `PrintWriter.println`.
+   * @return This object
+   * @throws IOException If the buffer could not be written
+   */
+  public NumberOutput newLine() throws IOException {
+    ensureCapacity(LINE_SEPARATOR.length);
+    for (byte b : LINE_SEPARATOR) {
+      bytes[position++] = b;
+    }
+    return this;
+  }
+
+  /**
+   * Writes the content of the buffer to the channel.
+   * @throws IOException If the channel cannot be written to
+   */
+  public void flush() throws IOException {
+    buffer.clear().limit(position);
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    position = 0;
+  }
+
+  /**
+   * Flushes the buffer and closes the channel.
+   * @throws IOException If the channel cannot be written to or closed
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+
+  private void ensureCapacity(int length) throws IOException {
+    if (position + length > bytes.length) {
+      flush();
+    }
+  }
+}
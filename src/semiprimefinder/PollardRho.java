@@ -0,0 +1,80 @@
+package semiprimefinder;
+
+/**
+ * Finds a divisor of odd composite long numbers with Brent's variant of
+ * Pollard's rho algorithm. The sequence x -> x^2 + c is computed in the
+ * Montgomery form of `MillerRabin`; since R = 2^64 is coprime to the odd n,
+ * the greatest common divisors with n are the same as for the plain numbers.
+ * A divisor p is found after about sqrt(p) steps.
+ */
+final class PollardRho {
+
+  /** Number of differences that are multiplied before taking the gcd */
+  private static final int BATCH_SIZE = 128;
+
+  private PollardRho() {
+  }
+
+  /**
+   * Returns a divisor of `n` other than 1 and `n`.
+   * @param n Odd composite number smaller than 2^63 that is no perfect square
+   * @return A divisor of `n`
+   */
+  static long findDivisor(long n) {
+    long inverse = MillerRabin.inverse(n);
+    for (long c = 1; ; ++c) {
+      long divisor = findDivisor(n, c % n, inverse);
+      if (divisor != n) {
+        return divisor;
+      }
+    }
+  }
+
+  /**
+   * Runs Brent's cycle detection on x -> x^2 + c.
+   * @return A divisor of `n`, which is `n` itself if this `c` failed
+   */
+  private static long findDivisor(long n, long c, long inverse) {
+    long y = c;
+    long x = y;
+    long saved = y;
+    long product = 1;
+    long gcd = 1;
+    for (int length = 1; gcd == 1; length <<= 1) {
+      x = y;
+      for (int i = 0; i < length; ++i) {
+        y = next(y, c, n, inverse);
+      }
+      for (int k = 0; k < length && gcd == 1; k += BATCH_SIZE) {
+        saved = y;
+        for (int i = 0; i < Math.min(BATCH_SIZE, length - k); ++i) {
+          y = next(y, c, n, inverse);
+          product = MillerRabin.multiply(product, Math.abs(x - y), n,
+              inverse);
+        }
+        gcd = gcd(product, n);
+      }
+    }
+    if (gcd == n) {
+      // The product became 0 mod n: repeat the last batch step by step
+      do {
+        saved = next(saved, c, n, inverse);
+        gcd = gcd(Math.abs(x - saved), n);
+      } while (gcd == 1);
+    }
+    return gcd;
+  }
+
+  private static long next(long x, long c, long n, long inverse) {
+    return MillerRabin.addMod(MillerRabin.multiply(x, x, n, inverse), c, n);
+  }
+
+  private static long gcd(long a, long b) {
+    while (b != 0) {
+      long remainder = a % b;
+      a = b;
+      b = remainder;
+    }
+    return a;
+  }
+}
@@ -1,9 +1,13 @@
 package semiprimefinder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Processes prime numbers based on some criteria.
@@ -16,37 +20,51 @@ public class PrimeNumberEvaluator {
    */
   private static final int MIN_CONSECUTIVE_ENDINGS = 3;
 
+  /** Number of runs of one length up to which all of them are printed */
+  private static final int MAX_PRINTED_RUNS = 100;
+
+  /** Number of chunks per thread to split the range into */
+  private static final int CHUNKS_PER_THREAD = 4;
+
   public static void main(String[] args) {
-    PrimeSieve ps = new PrimeSieve(50_000_000);
-    Map<Integer, List<List<Integer>>> sequences = findConsecutiveEndingDigits(ps
-        .toList());
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    PrimeSieve ps = PrimeSieve.cached(50_000_000, PrimeSieve.CACHE_FILE,
+        parallelism);
+    EndingDigitRuns runs = countConsecutiveEndingDigits(ps,
+        MIN_CONSECUTIVE_ENDINGS, MAX_PRINTED_RUNS, parallelism);
 
-    for (Map.Entry<Integer, List<List<Integer>>> entry : sequences.entrySet()) {
-      System.out.println(entry.getKey() + "\n-------------------");
-      if (entry.getValue().size() > 100) {
+    for (int length = MIN_CONSECUTIVE_ENDINGS; length <= runs
+        .getMaxLength(); ++length) {
+      long count = runs.getCount(length);
+      if (count == 0) {
+        continue;
+      }
+      System.out.println(length + "\n-------------------");
+      if (count > MAX_PRINTED_RUNS) {
         // Just output the number of found sequences if there are really many
-        System.out.println("Size: " + entry.getValue().size());
+        System.out.println("Size: " + count);
       } else {
-        for (List<Integer> sequence : entry.getValue()) {
-          System.out.println(" " + sequence);
+        for (int[] sequence : runs.getSamples(length)) {
+          System.out.println(" " + Arrays.toString(sequence));
         }
       }
     }
   }
 
   /**
-   * Processes a list of prime numbers and finds sequences of numbers which have
-   * the same ending digit.
-   * @param list The list to analyze
+   * Processes prime numbers in ascending order and finds sequences of numbers
+   * which have the same ending digit.
+   * @param primes The prime numbers to analyze
    * @return Collection of sequences where the key is the size
    */
   public static Map<Integer, List<List<Integer>>> findConsecutiveEndingDigits(
-      Iterable<Integer> list) {
+      PrimitiveIterator.OfInt primes) {
     Map<Integer, List<List<Integer>>> sameDigitSequences = new HashMap<>();
 
     int lastDigit = 0;
     List<Integer> currentSequence = new ArrayList<>();
-    for (Integer primeNumber : list) {
+    while (primes.hasNext()) {
+      int primeNumber = primes.nextInt();
       int currentLastDigit = primeNumber % 10;
       if (currentLastDigit == lastDigit) {
         currentSequence.add(primeNumber);
@@ -60,6 +78,86 @@ public class PrimeNumberEvaluator {
     return sameDigitSequences;
   }
 
+  /**
+   * Counts the sequences of prime numbers with the same ending digit like
+   * `findConsecutiveEndingDigits`, without boxing and without keeping all
+   * sequences. The sieve is split into chunks that are scanned by
+   * `parallelism` threads; sequences crossing the chunk boundaries are joined
+   * afterwards.
+   * @param primeSieve The sieve whose prime numbers should be analyzed
+   * @param minLength The minimum length of sequences to count
+   * @param maxSamples The maximum number of sequences to keep per length
+   * @param parallelism The number of threads to use
+   * @return The number of sequences per length and the first ones as samples
+   */
+  public static EndingDigitRuns countConsecutiveEndingDigits(
+      PrimeSieve primeSieve, int minLength, int maxSamples, int parallelism) {
+    int size = primeSieve.getSize();
+    int chunkCount = parallelism > 1 ? parallelism * CHUNKS_PER_THREAD : 1;
+    long chunkLength = ((long) size - 1) / chunkCount + 1;
+    List<RunChunkTask> chunks = new ArrayList<RunChunkTask>();
+    for (long from = 2; from <= size; from += chunkLength) {
+      int to = (int) Math.min(size, from + chunkLength - 1);
+      chunks.add(new RunChunkTask(primeSieve, (int) from, to, minLength,
+          maxSamples));
+    }
+
+    if (chunks.size() > 1) {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        pool.invoke(new RecursiveAction() {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected void compute() {
+            invokeAll(chunks);
+          }
+        });
+      } finally {
+        pool.shutdown();
+      }
+    } else {
+      chunks.forEach(RunChunkTask::compute);
+    }
+
+    // Join the runs at the chunk boundaries. A run starts with the prime at
+    // which the digit changes, which is not counted
+    EndingDigitRuns runs = new EndingDigitRuns(minLength, maxSamples);
+    int[] run = new int[0];
+    int digit = -1;
+    for (RunChunkTask chunk : chunks) {
+      if (chunk.lastRun == null) {
+        continue; // no prime numbers in the chunk
+      }
+      boolean isSingleRun = chunk.firstRun == null;
+      int[] firstRun = isSingleRun ? chunk.lastRun : chunk.firstRun;
+      int firstDigit = isSingleRun ? chunk.lastDigit : chunk.firstDigit;
+      if (firstDigit == digit) {
+        int length = run.length;
+        run = Arrays.copyOf(run, length + firstRun.length);
+        System.arraycopy(firstRun, 0, run, length, firstRun.length);
+      } else {
+        addRun(runs, run);
+        run = firstRun;
+        digit = firstDigit;
+      }
+      if (!isSingleRun) {
+        addRun(runs, run);
+        runs.addAll(chunk.runs);
+        run = chunk.lastRun;
+        digit = chunk.lastDigit;
+      }
+    }
+    addRun(runs, run);
+    return runs;
+  }
+
+  private static void addRun(EndingDigitRuns runs, int[] run) {
+    if (run.length > 0) {
+      runs.addRun(run, 1, run.length);
+    }
+  }
+
   /**
    * Saves a sequence of prime numbers with the same ending digit to
    * `collection` if they meet the threshold.
@@ -77,4 +175,66 @@ public class PrimeNumberEvaluator {
       collection.get(size).add(listCopy);
     }
   }
+
+  /**
+   * Scans the prime numbers in [from, to] for runs with the same ending digit.
+   * The runs at the start and end of the chunk are kept separately since they
+   * may continue in the neighboring chunks; all others are counted in `runs`.
+   */
+  private static class RunChunkTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final PrimeSieve primeSieve;
+    private final int from;
+    private final int to;
+
+    private final EndingDigitRuns runs;
+
+    /** The first run, or null if the chunk consists of only one run */
+    private int[] firstRun;
+    private int firstDigit;
+
+    /** The last run, or null if the chunk has no prime numbers */
+    private int[] lastRun;
+    private int lastDigit;
+
+    RunChunkTask(PrimeSieve primeSieve, int from, int to, int minLength,
+        int maxSamples) {
+      this.primeSieve = primeSieve;
+      this.from = from;
+      this.to = to;
+      this.runs = new EndingDigitRuns(minLength, maxSamples);
+    }
+
+    @Override
+    protected void compute() {
+      int[] run = new int[16];
+      int length = 0;
+      int digit = -1;
+      PrimitiveIterator.OfInt primes = primeSieve.iterator(from, to);
+      while (primes.hasNext()) {
+        int prime = primes.nextInt();
+        int currentDigit = prime % 10;
+        if (currentDigit != digit && length > 0) {
+          if (firstRun == null) {
+            firstRun = Arrays.copyOf(run, length);
+            firstDigit = digit;
+          } else {
+            runs.addRun(run, 1, length);
+          }
+          length = 0;
+        }
+        digit = currentDigit;
+        if (length == run.length) {
+          run = Arrays.copyOf(run, 2 * length);
+        }
+        run[length++] = prime;
+      }
+      if (length > 0) {
+        lastRun = Arrays.copyOf(run, length);
+        lastDigit = digit;
+      }
+    }
+  }
 }
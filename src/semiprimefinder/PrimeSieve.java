@@ -1,39 +1,158 @@
 package semiprimefinder;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
 
 /**
  * Class implementing the famous sieve algorithm to find prime numbers.
  */
 public class PrimeSieve {
 
+  /**
+   * Number of fields of `isDivisible` or of words of `oddDivisible` that are
+   * sieved as one block in parallel mode; about 256 KB each.
+   */
+  private static final int BLOCK_FIELDS = 1 << 18;
+  private static final int BLOCK_WORDS = 1 << 15;
+
+  /** Default file used by `cached` */
+  public static final String CACHE_FILE = "prime_sieve.cache";
+
+  /**
+   * Sieve file format: magic "PSV1" (int), version (int), size (int), word
+   * count (int), CRC32 of the words (long), followed by the words of
+   * `oddDivisible`; all little-endian.
+   */
+  private static final int FILE_MAGIC = 0x31565350;
+  private static final int FILE_VERSION = 1;
+  private static final int FILE_HEADER_SIZE = 24;
+
   /** List of numbers indicating whether it is divisible or not (i.e. a prime) */
   private boolean[] isDivisible;
 
+  /**
+   * Compact replacement of `isDivisible` which only covers the odd numbers,
+   * using one bit each: the odd number n is divisible if bit (n >> 1) is set.
+   * Only used in compact mode, in which case `isDivisible` is null.
+   */
+  private long[] oddDivisible;
+
   /**
    * The highest number that was examined; the last field in `isDivisible` is
    * isDivisible[size]
    */
   private int size;
 
+  /** All prime numbers in ascending order; only set once the index is built */
+  private int[] primeTable;
+
+  /**
+   * Odd numbers bit set the index counts on: `oddDivisible` in compact mode,
+   * or a copy of the odd fields of `isDivisible` otherwise
+   */
+  private long[] indexBits;
+
+  /** Number of prime numbers below each word of `indexBits` */
+  private int[] blockRanks;
+
+  /** Time it took to fill or load the sieve and to build the index */
+  private long sieveNanos;
+
   /**
    * Creates a PrimeSieve object and fills the list of primes up to `size`.
    * @param size The highest number to examine
    */
   public PrimeSieve(int size) {
-    isDivisible = new boolean[size + 1];
+    this(size, false);
+  }
+
+  /**
+   * Creates a PrimeSieve object and fills the list of primes up to `size`.
+   * @param size The highest number to examine
+   * @param compact True to store only the odd numbers with one bit each, which
+   *        uses about 1/16 of the memory of the default mode
+   */
+  public PrimeSieve(int size, boolean compact) {
+    this(size, compact, 1);
+  }
+
+  /**
+   * Creates a PrimeSieve object and fills the list of primes up to `size`,
+   * using multiple threads if `parallelism` is bigger than 1. In parallel mode
+   * the sieve is split into disjoint blocks, each of which is crossed off by
+   * all prime numbers up to sqrt(size); the result is the same.
+   * @param size The highest number to examine
+   * @param compact True to store only the odd numbers with one bit each
+   * @param parallelism The number of threads to sieve with
+   */
+  public PrimeSieve(int size, boolean compact, int parallelism) {
+    long startTime = System.nanoTime();
+    SearchEvents.Sieve event = new SearchEvents.Sieve();
+    event.begin();
+    this.size = size;
+    if (compact) {
+      oddDivisible = new long[(size >> 7) + 1];
+      oddDivisible[0] = 1L; // 1 isn't a prime
+    } else {
+      isDivisible = new boolean[size + 1];
+      isDivisible[0] = true; // Ugly fix so 0 and 1
+      isDivisible[1] = true; // aren't primes :)
+    }
+
+    if (parallelism > 1) {
+      fillSieveInParallel(parallelism);
+    } else if (compact) {
+      fillCompactSieve();
+    } else {
+      fillSieve();
+    }
+
+    sieveNanos = System.nanoTime() - startTime;
+    event.end();
+    if (event.shouldCommit()) {
+      event.size = size;
+      event.compact = compact;
+      event.parallelism = parallelism;
+      event.commit();
+    }
+  }
+
+  /**
+   * Creates a compact PrimeSieve object with the given data.
+   * @param size The highest number that was examined
+   * @param oddDivisible The bit set of divisible odd numbers up to `size`
+   */
+  private PrimeSieve(int size, long[] oddDivisible) {
     this.size = size;
-    isDivisible[0] = true; // Ugly fix so 0 and 1
-    isDivisible[1] = true; // aren't primes :)
-    fillSieve();
+    this.oddDivisible = oddDivisible;
   }
 
   public static void main(String[] args) {
     PrimeSieve ps = new PrimeSieve(1_000);
     // PrintHelper.printPrimes(ps.isDivisible, 12);
     System.out.println("Primes 2 <= n <=  1,000: " + ps.toList().size());
-    ps = new PrimeSieve(10_000);
+    ps = cached(10_000, CACHE_FILE, 1);
     // PrintHelper.printPrimes(ps.isDivisible, 12);
     System.out.println("Primes 2 <= n <= 10,000: " + ps.toList().size());
   }
@@ -45,9 +164,28 @@ public class PrimeSieve {
    * @return True if it is a prime number, false otherwise.
    */
   public boolean isPrime(int n) {
+    if (oddDivisible != null) {
+      return n > 2 ? (n & 1) == 1 && !isOddDivisible(n) : n == 2;
+    }
     return n > 0 && !isDivisible[n];
   }
 
+  /**
+   * Returns whether the sieve stores only odd numbers in a bit set.
+   * @return True if compact mode is used, false otherwise
+   */
+  public boolean isCompact() {
+    return oddDivisible != null;
+  }
+
+  /**
+   * Returns the highest number that was examined.
+   * @return The size of the sieve
+   */
+  public int getSize() {
+    return size;
+  }
+
   /**
    * Fills `isDivisible` with the proper values. If a number is not a prime
    * number, its corresponding field is set to true.
@@ -61,16 +199,128 @@ public class PrimeSieve {
     }
   }
 
+  /**
+   * Fills `oddDivisible` with the proper values; compact mode equivalent of
+   * `fillSieve`.
+   */
+  private void fillCompactSieve() {
+    int limit = (int) Math.sqrt(size);
+    for (int i = 3; i <= limit; i += 2) {
+      if (!isOddDivisible(i))
+        registerAsCompactPrime(i);
+    }
+  }
+
+  /**
+   * Sets the bits of all odd multiples <= `size` of `n`, starting at n*n.
+   * @param n The odd number to use as a prime number.
+   */
+  private void registerAsCompactPrime(int n) {
+    // Going from one odd multiple to the next (+2n) moves the index by n
+    int lastIndex = size >> 1;
+    for (int index = (n * n) >> 1; index <= lastIndex; index += n) {
+      oddDivisible[index >> 6] |= 1L << index;
+    }
+  }
+
+  /**
+   * Fills the sieve by crossing off disjoint blocks on a ForkJoinPool with
+   * `parallelism` threads.
+   * @param parallelism The number of threads to use
+   */
+  private void fillSieveInParallel(int parallelism) {
+    int[] basePrimes = new PrimeSieve((int) Math.sqrt(size), true)
+        .toIntArray();
+
+    int length = oddDivisible != null ? oddDivisible.length : size + 1;
+    int blockLength = oddDivisible != null ? BLOCK_WORDS : BLOCK_FIELDS;
+    int blocks = (length - 1) / blockLength + 1;
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.invoke(new SieveBlocksTask(basePrimes, 0, blocks, blockLength));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Crosses off all multiples of `basePrimes` in [from, to] of `isDivisible`,
+   * starting at p*p for each prime p.
+   * @param from The first number of the block
+   * @param to The last number of the block
+   * @param basePrimes The prime numbers up to sqrt(to)
+   */
+  private void crossOffBlock(int from, int to, int[] basePrimes) {
+    for (int prime : basePrimes) {
+      int square = prime * prime;
+      if (square > to) {
+        break;
+      }
+      int multiple = Math.max(square, (from + prime - 1) / prime * prime);
+      for (; multiple <= to; multiple += prime) {
+        isDivisible[multiple] = true;
+      }
+    }
+  }
+
+  /**
+   * Crosses off all odd multiples of `basePrimes` in the bit indices
+   * [fromIndex, toIndex] of `oddDivisible`, starting at p*p for each prime p.
+   * @param fromIndex The first bit index of the block
+   * @param toIndex The last bit index of the block
+   * @param basePrimes The prime numbers up to sqrt(2 * toIndex + 1)
+   */
+  private void crossOffCompactBlock(int fromIndex, int toIndex,
+      int[] basePrimes) {
+    long firstOdd = 2L * fromIndex + 1;
+    for (int prime : basePrimes) {
+      if (prime == 2) {
+        continue;
+      }
+      long square = (long) prime * prime;
+      if (square > 2L * toIndex + 1) {
+        break;
+      }
+      long multiple = Math.max(square, (firstOdd + prime - 1) / prime * prime);
+      if ((multiple & 1) == 0) {
+        multiple += prime;
+      }
+      for (int index = (int) (multiple >> 1); index <= toIndex; index += prime) {
+        oddDivisible[index >> 6] |= 1L << index;
+      }
+    }
+  }
+
+  /**
+   * Returns whether the odd number `n` is set as divisible in `oddDivisible`.
+   * @param n The odd number to check
+   * @return True if it is divisible, false if it is a prime
+   */
+  private boolean isOddDivisible(int n) {
+    return (oddDivisible[n >> 7] & (1L << (n >> 1))) != 0;
+  }
+
   /**
    * Return next prime number that is bigger than `start`.
    * @param start The number the prime number needs to be bigger & closest to.
    * @return The next prime number, or 0 upon error (size exceeded).
    */
   public int nextPrime(int start) {
+    if (start >= size) {
+      // Also keeps `start + 2` from overflowing for Integer.MAX_VALUE
+      return 0;
+    }
     // Ensure that `start` is odd
     // even for nextPrime(2) the result is 3
     // but for `start` < 2 the result is 3 and not 2
+    if (primeTable != null) {
+      int rank = pi(Math.max(start, 2));
+      return rank < primeTable.length ? primeTable[rank] : 0;
+    }
     start -= (start & 1) == 0 ? 1 : 0;
+    if (oddDivisible != null) {
+      return nextCompactPrime(Math.max(start + 2, 1));
+    }
     while ((start += 2) <= size) {
       if (!isDivisible[start])
         return start;
@@ -78,6 +328,320 @@ public class PrimeSieve {
     return 0;
   }
 
+  /**
+   * Builds the index for constant-time lookups with `nextPrime`, `primeAt` and
+   * `pi`: a table of all prime numbers and the number of primes below each
+   * block of 64 odd numbers. Does nothing if the index already exists.
+   * @return This object
+   */
+  public PrimeSieve buildIndex() {
+    if (primeTable != null) {
+      return this;
+    }
+    long startTime = System.nanoTime();
+    if (oddDivisible != null) {
+      indexBits = oddDivisible;
+    } else {
+      indexBits = new long[(size >> 7) + 1];
+      for (int i = 1; i <= size; i += 2) {
+        if (isDivisible[i])
+          indexBits[i >> 7] |= 1L << (i >> 1);
+      }
+    }
+
+    blockRanks = new int[indexBits.length];
+    int rank = 1; // 2 is the only even prime number
+    for (int word = 0; word < indexBits.length; ++word) {
+      blockRanks[word] = rank;
+      rank += Long.bitCount(~indexBits[word]);
+    }
+    primeTable = toIntArray();
+    sieveNanos += System.nanoTime() - startTime;
+    return this;
+  }
+
+  /**
+   * Grows the sieve to `newSize` by only crossing off the numbers in
+   * (size, newSize]. An existing index is extended as well, so only the new
+   * part is scanned.
+   * @param newSize The new highest number to examine; nothing happens if it is
+   *        not bigger than the current size
+   * @return This object
+   */
+  public PrimeSieve extendTo(int newSize) {
+    if (newSize <= size) {
+      return this;
+    }
+    int oldSize = size;
+    int[] basePrimes = new PrimeSieve((int) Math.sqrt(newSize), true)
+        .toIntArray();
+    size = newSize;
+    if (oddDivisible != null) {
+      oddDivisible = Arrays.copyOf(oddDivisible, (newSize >> 7) + 1);
+      crossOffCompactBlock((oldSize + 1) >> 1, newSize >> 1, basePrimes);
+    } else {
+      isDivisible = Arrays.copyOf(isDivisible, newSize + 1);
+      crossOffBlock(oldSize + 1, newSize, basePrimes);
+    }
+    if (primeTable != null) {
+      extendIndex(oldSize);
+    }
+    return this;
+  }
+
+  /**
+   * Updates the index after the sieve has been extended from `oldSize` to
+   * `size`. The ranks of the words before the old last word stay the same.
+   * @param oldSize The size of the sieve when the index was built
+   */
+  private void extendIndex(int oldSize) {
+    int oldWordCount = indexBits.length;
+    if (oddDivisible != null) {
+      indexBits = oddDivisible;
+    } else {
+      indexBits = Arrays.copyOf(indexBits, (size >> 7) + 1);
+      for (int i = oldSize + 1 | 1; i <= size; i += 2) {
+        if (isDivisible[i])
+          indexBits[i >> 7] |= 1L << (i >> 1);
+      }
+    }
+
+    blockRanks = Arrays.copyOf(blockRanks, indexBits.length);
+    int rank = blockRanks[oldWordCount - 1];
+    for (int word = oldWordCount - 1; word < indexBits.length; ++word) {
+      blockRanks[word] = rank;
+      rank += Long.bitCount(~indexBits[word]);
+    }
+
+    int count = primeTable.length;
+    primeTable = Arrays.copyOf(primeTable, pi(size));
+    for (int n = oldSize + 1; count < primeTable.length; ++n) {
+      if (isPrime(n))
+        primeTable[count++] = n;
+    }
+  }
+
+  /**
+   * Returns the time it took to fill the sieve, or to load it with `open`,
+   * plus the time to build the index.
+   * @return The time in nanoseconds
+   */
+  public long getSieveNanos() {
+    return sieveNanos;
+  }
+
+  /**
+   * Returns whether `buildIndex` has been called.
+   * @return True if the index exists, false otherwise
+   */
+  public boolean hasIndex() {
+    return primeTable != null;
+  }
+
+  /**
+   * Returns the number of prime numbers that are smaller than or equal to `n`.
+   * Requires the index; numbers beyond `size` are not counted.
+   * @param n The number up to which the primes should be counted
+   * @return The number of prime numbers p with p <= n
+   */
+  public int pi(int n) {
+    checkIndex();
+    n = Math.min(n, size);
+    if (n < 2) {
+      return 0;
+    }
+    int index = (n - 1) >> 1; // index of the largest odd number <= n
+    int word = index >> 6;
+    return blockRanks[word]
+        + Long.bitCount(~indexBits[word] & (-1L >>> (63 - (index & 63))));
+  }
+
+  /**
+   * Returns the prime number with the given (zero-based) index, e.g. 2 for
+   * k = 0 and 5 for k = 2. Requires the index.
+   * @param k The index of the prime number, smaller than `primeCount()`
+   * @return The k-th prime number
+   */
+  public int primeAt(int k) {
+    checkIndex();
+    return primeTable[k];
+  }
+
+  /**
+   * Returns the number of prime numbers up to `size`. Requires the index.
+   * @return The number of prime numbers found
+   */
+  public int primeCount() {
+    checkIndex();
+    return primeTable.length;
+  }
+
+  private void checkIndex() {
+    if (primeTable == null) {
+      throw new IllegalStateException("The index has not been built");
+    }
+  }
+
+  /**
+   * Saves the sieve to a file, which is replaced if it exists. The file always
+   * holds the compact bit set, independently of the mode of this sieve. It is
+   * written to a temporary file first and then moved, so a crash never leaves
+   * a partially written file behind.
+   * @param filename The file to write to
+   * @throws IOException If the file cannot be written
+   */
+  public void save(String filename) throws IOException {
+    long[] words = oddDivisible;
+    if (words == null) {
+      words = new long[(size >> 7) + 1];
+      for (int i = 1; i <= size; i += 2) {
+        if (isDivisible[i])
+          words[i >> 7] |= 1L << (i >> 1);
+      }
+    }
+
+    ByteBuffer payload = ByteBuffer.allocateDirect(words.length * 8)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    payload.asLongBuffer().put(words);
+    CRC32 crc = new CRC32();
+    crc.update(payload.duplicate());
+    ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(size)
+        .putInt(words.length).putLong(crc.getValue()).flip();
+
+    Path path = Paths.get(filename);
+    Path temporary = Paths.get(filename + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE)) {
+      while (header.hasRemaining()) {
+        channel.write(header);
+      }
+      while (payload.hasRemaining()) {
+        channel.write(payload);
+      }
+      channel.force(true);
+    }
+    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Reads a sieve saved with `save` by memory-mapping the file. The checksum
+   * of the file is verified, and the part up to `size` is copied in bulk into
+   * a compact sieve, so the file may have been saved with a bigger size.
+   * @param filename The file to read
+   * @param size The highest number to examine, at most the size of the file
+   * @return Compact sieve up to `size`
+   * @throws IOException If the file cannot be read, is corrupt or too small
+   */
+  public static PrimeSieve open(String filename, int size) throws IOException {
+    long startTime = System.nanoTime();
+    try (FileChannel channel = FileChannel.open(Paths.get(filename),
+        StandardOpenOption.READ)) {
+      if (channel.size() < FILE_HEADER_SIZE) {
+        throw new IOException("Not a prime sieve file");
+      }
+      MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+          channel.size());
+      file.order(ByteOrder.LITTLE_ENDIAN);
+      if (file.getInt() != FILE_MAGIC) {
+        throw new IOException("Not a prime sieve file");
+      }
+      int version = file.getInt();
+      if (version != FILE_VERSION) {
+        throw new IOException("Unsupported version " + version);
+      }
+      int fileSize = file.getInt();
+      int wordCount = file.getInt();
+      long checksum = file.getLong();
+      if (fileSize < 0 || wordCount != (fileSize >> 7) + 1) {
+        throw new IOException("Invalid size " + fileSize + " with "
+            + wordCount + " words");
+      }
+      if (fileSize < size) {
+        throw new IOException("The file only covers numbers up to "
+            + fileSize);
+      }
+      if (channel.size() != FILE_HEADER_SIZE + 8L * wordCount) {
+        throw new IOException("Unexpected file length");
+      }
+
+      CRC32 crc = new CRC32();
+      crc.update(file.duplicate());
+      if (crc.getValue() != checksum) {
+        throw new IOException("Checksum mismatch");
+      }
+      long[] words = new long[(size >> 7) + 1];
+      file.asLongBuffer().get(words);
+      PrimeSieve sieve = new PrimeSieve(size, words);
+      sieve.sieveNanos = System.nanoTime() - startTime;
+      return sieve;
+    }
+  }
+
+  /**
+   * Returns a compact sieve up to `size`, reading it from `filename` if that
+   * file covers `size`. Otherwise the sieve is computed and saved to the file
+   * for the next time, unless the file is bigger and thus covers more numbers.
+   * Problems with the file are reported but otherwise ignored.
+   * @param size The highest number to examine
+   * @param filename The cache file
+   * @param parallelism The number of threads to sieve with if needed
+   * @return Compact sieve up to `size`
+   */
+  public static PrimeSieve cached(int size, String filename, int parallelism) {
+    Path path = Paths.get(filename);
+    long length = 8L * ((size >> 7) + 1) + FILE_HEADER_SIZE;
+    long cachedLength = 0;
+    try {
+      cachedLength = Files.size(path);
+      if (cachedLength >= length) {
+        return open(filename, size);
+      }
+    } catch (NoSuchFileException e) {
+      // Nothing cached yet
+    } catch (IOException e) {
+      System.err.println("Cannot use sieve cache '" + filename + "': "
+          + e.getMessage());
+    }
+
+    PrimeSieve sieve = new PrimeSieve(size, true, parallelism);
+    if (cachedLength > length) {
+      return sieve;
+    }
+    try {
+      sieve.save(filename);
+    } catch (IOException e) {
+      System.err.print("Encountered exception of type "
+          + e.getClass().getSimpleName());
+      System.err.println(" with message: " + e.getMessage());
+    }
+    return sieve;
+  }
+
+  /**
+   * Finds the first prime number in `oddDivisible` that is equal to or bigger
+   * than `odd`, skipping over 64 odd numbers at a time.
+   * @param odd The odd number to start at
+   * @return The prime number, or 0 if `size` is exceeded
+   */
+  private int nextCompactPrime(int odd) {
+    int index = odd >>> 1;
+    int word = index >> 6;
+    if (word >= oddDivisible.length)
+      return 0;
+    long primeBits = ~oddDivisible[word] & (-1L << index);
+    while (primeBits == 0) {
+      if (++word == oddDivisible.length)
+        return 0;
+      primeBits = ~oddDivisible[word];
+    }
+    int prime = (((word << 6) + Long.numberOfTrailingZeros(primeBits)) << 1) + 1;
+    return prime <= size ? prime : 0;
+  }
+
   /**
    * Sets all multiples <= `size` to true, indicating that the fields are not
    * prime numbers.
@@ -101,6 +665,13 @@ public class PrimeSieve {
   public List<Integer> toList() {
     List<Integer> list = new ArrayList<Integer>();
     list.add(2);
+    if (oddDivisible != null) {
+      for (int prime = nextCompactPrime(3); prime != 0;
+          prime = prime < size ? nextCompactPrime(prime + 2) : 0) {
+        list.add(prime);
+      }
+      return list;
+    }
     for (int i = 3; i <= size; i += 2) {
       if (!isDivisible[i])
         list.add(i);
@@ -108,4 +679,123 @@ public class PrimeSieve {
     return list;
   }
 
-}
\ No newline at end of file
+  /**
+   * Creates an array with the prime numbers, without boxing them.
+   * @return Array of the prime numbers found, in ascending order.
+   */
+  public int[] toIntArray() {
+    int[] primes = new int[countPrimes()];
+    PrimitiveIterator.OfInt it = iterator(2, size);
+    for (int i = 0; i < primes.length; ++i) {
+      primes[i] = it.nextInt();
+    }
+    return primes;
+  }
+
+  /**
+   * Returns a stream of the prime numbers in ascending order.
+   * @return Stream of the prime numbers found.
+   */
+  public IntStream primes() {
+    return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(
+        iterator(2, size), Spliterator.ORDERED | Spliterator.DISTINCT
+            | Spliterator.SORTED | Spliterator.NONNULL), false);
+  }
+
+  /**
+   * Returns an iterator over the prime numbers p with from <= p <= to in
+   * ascending order. Numbers beyond `size` are never returned.
+   * @param from The lowest number to consider
+   * @param to The highest number to consider
+   * @return Iterator over the prime numbers in the range
+   */
+  public PrimitiveIterator.OfInt iterator(int from, int to) {
+    int last = Math.min(to, size);
+    return new PrimitiveIterator.OfInt() {
+      private int next = from <= 2 ? (last >= 2 ? 2 : 0) : nextPrime(from - 1);
+
+      @Override
+      public boolean hasNext() {
+        return next != 0 && next <= last;
+      }
+
+      @Override
+      public int nextInt() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        int current = next;
+        next = nextPrime(current);
+        return current;
+      }
+    };
+  }
+
+  /**
+   * Counts the prime numbers up to `size`.
+   * @return The number of prime numbers found
+   */
+  private int countPrimes() {
+    int count = size >= 2 ? 1 : 0;
+    if (oddDivisible != null) {
+      // Index of the largest odd number <= size
+      int lastIndex = (size - 1) >> 1;
+      for (int word = 0; word <= lastIndex >> 6; ++word) {
+        long primeBits = ~oddDivisible[word];
+        if (word == lastIndex >> 6) {
+          primeBits &= -1L >>> (63 - (lastIndex & 63));
+        }
+        count += Long.bitCount(primeBits);
+      }
+      return count;
+    }
+    for (int i = 3; i <= size; i += 2) {
+      if (!isDivisible[i])
+        ++count;
+    }
+    return count;
+  }
+
+  /**
+   * Fork-join task crossing off the blocks [fromBlock, toBlock) of the sieve.
+   * Blocks never share a field or a word, so no synchronization is required.
+   */
+  private class SieveBlocksTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int[] basePrimes;
+    private final int fromBlock;
+    private final int toBlock;
+    private final int blockLength;
+
+    SieveBlocksTask(int[] basePrimes, int fromBlock, int toBlock,
+        int blockLength) {
+      this.basePrimes = basePrimes;
+      this.fromBlock = fromBlock;
+      this.toBlock = toBlock;
+      this.blockLength = blockLength;
+    }
+
+    @Override
+    protected void compute() {
+      if (toBlock - fromBlock > 1) {
+        int middle = (fromBlock + toBlock) >>> 1;
+        invokeAll(new SieveBlocksTask(basePrimes, fromBlock, middle, blockLength),
+            new SieveBlocksTask(basePrimes, middle, toBlock, blockLength));
+        return;
+      }
+
+      long start = (long) fromBlock * blockLength;
+      if (oddDivisible != null) {
+        int lastIndex = size >> 1;
+        int toIndex = (int) Math.min(lastIndex, ((start + blockLength) << 6) - 1);
+        crossOffCompactBlock((int) (start << 6), toIndex, basePrimes);
+      } else {
+        int to = (int) Math.min(size, start + blockLength - 1);
+        crossOffBlock((int) start, to, basePrimes);
+      }
+    }
+  }
+
+}
@@ -1,51 +1,124 @@
 package semiprimefinder;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
- * Prints lists with proper formatting
+ * Prints lists with proper formatting. The output is formatted into the buffer
+ * of a `NumberOutput` and written to the console in large chunks; the methods
+ * taking a NumberOutput can write to any other destination.
  */
 public class PrintHelper {
 
   public static void printPrimes(boolean[] array, int entriesPerLine) {
+    try (NumberOutput out = NumberOutput.toStandardOutput()) {
+      printPrimes(array, entriesPerLine, out);
+    } catch (IOException e) {
+      printException(e);
+    }
+  }
+
+  /**
+   * Writes the prime numbers of a sieve in columns of equal width.
+   * @param array Sieve in which the prime numbers are the false entries
+   * @param entriesPerLine The number of primes per line
+   * @param out The output to write to
+   * @throws IOException If the output cannot be written
+   */
+  public static void printPrimes(boolean[] array, int entriesPerLine,
+      NumberOutput out) throws IOException {
     int maxLength = (int) Math.log10(array.length);
-    createPadding(maxLength - 1);
-    System.out.print("2, ");
+    out.writePadded(2, maxLength).write(", ");
 
     int displayedPrimes = 1;
     for (int i = 3; i < array.length; i += 2) {
       if (!array[i]) {
-        String s = new Integer(i).toString();
-        createPadding(maxLength - s.length());
-        System.out.print(i + ", ");
+        out.writePadded(i, maxLength).write(", ");
         if (++displayedPrimes == entriesPerLine) {
-          System.out.println();
+          out.newLine();
           displayedPrimes = 0;
         }
       }
     }
-    System.out.println();
-
+    out.newLine();
   }
 
   public static void printSemiprimes(Map<Integer, Sequence> semiprimes) {
-    for (Map.Entry<Integer, Sequence> entry : semiprimes.entrySet()) {
-      System.out.print(entry.getKey());
-
-      Sequence sequence = entry.getValue();
-      String sign = sequence.getSign() == 1 ? "+1" : "-1";
-      System.out.print("\t" + sign + "\t");
-      for (Integer factor : sequence.getFactors()) {
-        System.out.print(factor + " ");
+    printSemiprimes(SemiprimeResults.of(semiprimes));
+  }
+
+  public static void printSemiprimes(SemiprimeResults semiprimes) {
+    try (NumberOutput out = NumberOutput.toStandardOutput()) {
+      printSemiprimes(semiprimes, out);
+    } catch (IOException e) {
+      printException(e);
+    }
+  }
+
+  /**
+   * Writes one line per semiprime with the sign and the factors.
+   * @param semiprimes The semiprimes to write
+   * @param out The output to write to
+   * @throws IOException If the output cannot be written
+   */
+  public static void printSemiprimes(SemiprimeResults semiprimes,
+      NumberOutput out) throws IOException {
+    for (int i = 0; i < semiprimes.size(); ++i) {
+      out.write(semiprimes.keyAt(i));
+      out.write(semiprimes.signAt(i) == 1 ? "\t+1\t" : "\t-1\t");
+      for (int j = 0; j < semiprimes.factorCount(i); ++j) {
+        out.write(semiprimes.factorAt(i, j)).write(' ');
       }
-      System.out.println();
+      out.newLine();
     }
   }
 
-  private static void createPadding(int length) {
-    for (int i = 0; i < length; ++i) {
-      System.out.print(" ");
+  /**
+   * Prints the semiprimes of the publisher like `printSemiprimes`, but while
+   * they are found, so they never need to be held in memory all at once.
+   * @param semiprimes The publisher of the semiprimes to print
+   */
+  public static void printSemiprimes(SemiprimePublisher semiprimes) {
+    try (NumberOutput out = NumberOutput.toStandardOutput()) {
+      printSemiprimes(semiprimes, out);
+    } catch (IOException e) {
+      printException(e);
     }
   }
 
+  /**
+   * Writes the semiprimes of the publisher like
+   * `printSemiprimes(SemiprimeResults, NumberOutput)` while they are found.
+   * @param semiprimes The publisher of the semiprimes to write
+   * @param out The output to write to
+   * @throws IOException If the output cannot be written
+   */
+  public static void printSemiprimes(SemiprimePublisher semiprimes,
+      NumberOutput out) throws IOException {
+    IOException[] exception = new IOException[1];
+    semiprimes.forEach((prime, sign, factors, factorCount) -> {
+      if (exception[0] != null) {
+        return;
+      }
+      try {
+        out.write(prime).write(sign == 1 ? "\t+1\t" : "\t-1\t");
+        for (int j = 0; j < factorCount; ++j) {
+          out.write(factors[j]).write(' ');
+        }
+        out.newLine();
+      } catch (IOException e) {
+        exception[0] = e;
+      }
+    });
+    if (exception[0] != null) {
+      throw exception[0];
+    }
+  }
+
+  private static void printException(IOException e) {
+    System.out.print("Encountered exception of type "
+        + e.getClass().getSimpleName());
+    System.out.println(" with message: " + e.getMessage());
+  }
+
 }
@@ -0,0 +1,263 @@
+package semiprimefinder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Persists the progress of a `SemiprimeFinder` search in a directory, so that
+ * a search that was interrupted can be resumed. The unit of progress is a
+ * smallest factor: once all combinations with a smallest factor are done, its
+ * semiprimes are pending and are written as a new segment at the next
+ * checkpoint. A resumed search loads all segments and skips the smallest
+ * factors that were completed, so its results are the same as those of an
+ * uninterrupted search.
+ *
+ * The directory contains:
+ * <pre>
+ * prime_sieve.cache   the sieve, see `PrimeSieve.cached`
+ * results-k.bin       the semiprimes of the k-th checkpoint, in the format of
+ *                     `SemiprimeResultsFile`
+ * checkpoint.dat      magic (int), version (int), size (int), segment count
+ *                     (int), count of completed smallest factors (int), the
+ *                     completed smallest factors (int each), CRC32 of the
+ *                     preceding bytes (long); all little-endian
+ * </pre>
+ * The state file is replaced atomically after the segment has been written
+ * and forced to the storage device, so a segment that is being written when
+ * the process is killed is ignored, and the state never refers to a segment
+ * that was lost in a power failure.
+ */
+public class SearchCheckpoint {
+
+  static final int MAGIC = 0x31435053; // "SPC1" in little-endian
+  static final int VERSION = 1;
+
+  private static final String STATE_FILE = "checkpoint.dat";
+  private static final String SIEVE_FILE = "prime_sieve.cache";
+
+  private final Path directory;
+
+  /** Minimum time between two checkpoints */
+  private final long intervalNanos;
+
+  /** The size of the search; 0 until `resume` is called */
+  private int size;
+
+  /** The smallest factors whose semiprimes are saved */
+  private final List<Integer> savedPrimes = new ArrayList<Integer>();
+
+  /** All completed smallest factors, saved or pending */
+  private final BitSet completedPrimes = new BitSet();
+
+  private int segmentCount;
+
+  /** Semiprimes of the completed smallest factors that are not saved yet */
+  private SemiprimeResults.Builder pending = new SemiprimeResults.Builder();
+  private final List<Integer> pendingPrimes = new ArrayList<Integer>();
+
+  private long lastCheckpoint = System.nanoTime();
+
+  /**
+   * Creates a checkpoint in the given directory, which is created if needed.
+   * @param directory The directory to keep the files in
+   * @param intervalMillis The minimum time between two checkpoints; 0 to save
+   *        after every smallest factor
+   * @throws IOException If the directory cannot be created
+   */
+  public SearchCheckpoint(String directory, long intervalMillis)
+      throws IOException {
+    this.directory = Files.createDirectories(Paths.get(directory));
+    this.intervalNanos = intervalMillis * 1_000_000;
+  }
+
+  /**
+   * Returns the sieve up to `size` from the sieve cache of the directory,
+   * creating the cache if needed.
+   * @param size The highest number to examine
+   * @param parallelism The number of threads to sieve with if needed
+   * @return Compact sieve up to `size`
+   */
+  public PrimeSieve loadSieve(int size, int parallelism) {
+    return PrimeSieve.cached(size, directory.resolve(SIEVE_FILE).toString(),
+        parallelism);
+  }
+
+  /**
+   * Loads the state of a previous search up to `size` and adds its
+   * semiprimes to `results`. Without a usable state, the search starts over;
+   * problems with the files are reported but otherwise ignored.
+   * @param size The size of the search
+   * @param results The builder to add the saved semiprimes to
+   */
+  synchronized void resume(int size, SemiprimeResults.Builder results) {
+    this.size = size;
+    try {
+      ByteBuffer state = ByteBuffer.wrap(
+          Files.readAllBytes(directory.resolve(STATE_FILE)))
+          .order(ByteOrder.LITTLE_ENDIAN);
+      List<Integer> primes = readState(state, size);
+      if (primes == null) {
+        return;
+      }
+      SemiprimeResults.Builder saved = new SemiprimeResults.Builder();
+      for (int k = 0; k < segmentCount; ++k) {
+        MappedSemiprimeResults segment =
+            MappedSemiprimeResults.open(segmentFile(k).toString());
+        int[] factorStack = new int[segment.maxFactorCount()];
+        for (int i = 0; i < segment.size(); ++i) {
+          int factorCount = segment.factorCount(i);
+          for (int j = 0; j < factorCount; ++j) {
+            factorStack[j] = segment.factorAt(i, j);
+          }
+          saved.add(segment.keyAt(i), segment.signAt(i), factorStack,
+              factorCount);
+        }
+      }
+      results.addAll(saved);
+      savedPrimes.addAll(primes);
+      for (int prime : primes) {
+        completedPrimes.set(prime);
+      }
+    } catch (NoSuchFileException e) {
+      // Nothing saved yet
+      segmentCount = 0;
+    } catch (IOException e) {
+      System.err.println("Cannot resume from checkpoint '" + directory + "': "
+          + e.getMessage());
+      segmentCount = 0;
+    }
+  }
+
+  /**
+   * Returns whether all combinations with the given smallest factor have been
+   * handled by a previous search.
+   * @param prime The smallest factor
+   * @return True if its semiprimes are known already
+   */
+  synchronized boolean isCompleted(int prime) {
+    return completedPrimes.get(prime);
+  }
+
+  /**
+   * Registers that all combinations with the given smallest factor are done
+   * and saves a checkpoint if the interval has passed.
+   * @param prime The smallest factor
+   * @param results The semiprimes with this smallest factor
+   */
+  synchronized void smallestFactorCompleted(int prime,
+      SemiprimeResults.Builder results) {
+    completedPrimes.set(prime);
+    pending.addAll(results);
+    pendingPrimes.add(prime);
+    if (System.nanoTime() - lastCheckpoint >= intervalNanos) {
+      save();
+    }
+  }
+
+  /**
+   * Saves the pending semiprimes, if any. Problems with the files are
+   * reported, and the semiprimes stay pending for the next checkpoint.
+   */
+  synchronized void save() {
+    lastCheckpoint = System.nanoTime();
+    if (pendingPrimes.isEmpty()) {
+      return;
+    }
+    try {
+      // The segment must be durable before the state refers to it
+      SemiprimeResultsFile.write(pending.build(),
+          segmentFile(segmentCount).toString(), true);
+      List<Integer> primes = new ArrayList<Integer>(savedPrimes);
+      primes.addAll(pendingPrimes);
+      writeState(segmentCount + 1, primes);
+
+      ++segmentCount;
+      savedPrimes.addAll(pendingPrimes);
+      pendingPrimes.clear();
+      pending = new SemiprimeResults.Builder();
+    } catch (IOException e) {
+      System.err.print("Encountered exception of type "
+          + e.getClass().getSimpleName());
+      System.err.println(" with message: " + e.getMessage());
+    }
+  }
+
+  private Path segmentFile(int k) {
+    return directory.resolve("results-" + k + ".bin");
+  }
+
+  /**
+   * Reads the state and sets `segmentCount`.
+   * @return The completed smallest factors, or null if the state belongs to
+   *         a search of another size
+   */
+  private List<Integer> readState(ByteBuffer state, int size)
+      throws IOException {
+    if (state.remaining() < 28 || state.getInt() != MAGIC) {
+      throw new IOException("Not a checkpoint file");
+    }
+    int version = state.getInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported version " + version);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(state.array(), 0, state.limit() - 8);
+    if (crc.getValue() != state.getLong(state.limit() - 8)) {
+      throw new IOException("Checksum mismatch");
+    }
+    if (state.getInt() != size) {
+      return null;
+    }
+    segmentCount = state.getInt();
+    int count = state.getInt();
+    if (state.remaining() != 4L * count + 8) {
+      throw new IOException("Unexpected file length");
+    }
+    List<Integer> primes = new ArrayList<Integer>(count);
+    for (int i = 0; i < count; ++i) {
+      primes.add(state.getInt());
+    }
+    return primes;
+  }
+
+  /**
+   * Replaces the state file by writing a temporary file and moving it.
+   */
+  private void writeState(int segments, List<Integer> primes)
+      throws IOException {
+    ByteBuffer state = ByteBuffer.allocate(28 + 4 * primes.size())
+        .order(ByteOrder.LITTLE_ENDIAN);
+    state.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(segments)
+        .putInt(primes.size());
+    for (int prime : primes) {
+      state.putInt(prime);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(state.array(), 0, state.position());
+    state.putLong(crc.getValue()).flip();
+
+    Path temporary = directory.resolve(STATE_FILE + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE)) {
+      while (state.hasRemaining()) {
+        channel.write(state);
+      }
+      channel.force(true);
+    }
+    Files.move(temporary, directory.resolve(STATE_FILE),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+}
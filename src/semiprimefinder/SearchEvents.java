@@ -0,0 +1,73 @@
+package semiprimefinder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder events of the sieve and the semiprime search. They are only
+ * recorded if a recording is running, e.g. with
+ * `-XX:StartFlightRecording=filename=search.jfr`; otherwise creating them costs
+ * next to nothing.
+ */
+final class SearchEvents {
+
+  private SearchEvents() {
+  }
+
+  @Name("semiprimefinder.Sieve")
+  @Label("Prime Sieve")
+  @Category("Semiprimes")
+  @Description("Construction of a prime sieve")
+  static class Sieve extends Event {
+
+    @Label("Size")
+    int size;
+
+    @Label("Compact")
+    boolean compact;
+
+    @Label("Parallelism")
+    int parallelism;
+  }
+
+  @Name("semiprimefinder.SmallestFactor")
+  @Label("Smallest Factor")
+  @Category("Semiprimes")
+  @Description("All combinations with one smallest factor")
+  static class SmallestFactor extends Event {
+
+    @Label("Prime")
+    int prime;
+
+    @Label("Combinations")
+    long combinations;
+
+    @Label("Semiprimes")
+    long semiprimes;
+
+    @Label("Maximum Depth")
+    int maxDepth;
+  }
+
+  @Name("semiprimefinder.Search")
+  @Label("Semiprime Search")
+  @Category("Semiprimes")
+  @Description("Generation of all combinations up to a size")
+  static class Search extends Event {
+
+    @Label("Size")
+    int size;
+
+    @Label("Parallelism")
+    int parallelism;
+
+    @Label("Combinations")
+    long combinations;
+
+    @Label("Semiprimes")
+    long semiprimes;
+  }
+}
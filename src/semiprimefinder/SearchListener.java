@@ -0,0 +1,217 @@
+package semiprimefinder;
+
+import java.io.PrintStream;
+
+/**
+ * Receives statistics of a `SemiprimeFinder` search while it is running. All
+ * methods do nothing by default. The methods may be called from different
+ * threads, but never at the same time.
+ */
+public interface SearchListener {
+
+  /**
+   * Called once before the combinations are generated.
+   * @param size The highest number that is examined
+   * @param nanos The time it took to create the prime sieve and its index
+   */
+  default void sieveCompleted(int size, long nanos) {
+  }
+
+  /**
+   * Called when all combinations with a given smallest factor have been
+   * handled: in ascending order with one thread, in the order in which they
+   * complete otherwise.
+   * @param statistics The statistics of the smallest factor
+   */
+  default void smallestFactorCompleted(FactorStatistics statistics) {
+  }
+
+  /**
+   * Called periodically while the combinations are generated, see
+   * `getProgressIntervalMillis`.
+   * @param progress The progress so far
+   */
+  default void progress(Progress progress) {
+  }
+
+  /**
+   * Called once all combinations have been generated.
+   * @param progress The totals of the search
+   */
+  default void searchCompleted(Progress progress) {
+  }
+
+  /**
+   * Returns the interval between calls to `progress`.
+   * @return The interval in milliseconds, 0 or less to not report progress
+   */
+  default long getProgressIntervalMillis() {
+    return 1000;
+  }
+
+  /**
+   * Returns a listener that prints the progress and the totals to `out`.
+   * @param out The stream to print to
+   * @return The listener
+   */
+  static SearchListener printingTo(PrintStream out) {
+    return new SearchListener() {
+      @Override
+      public void sieveCompleted(int size, long nanos) {
+        out.println("Sieved up to " + size + " in " + nanos / 1_000_000
+            + " ms");
+      }
+
+      @Override
+      public void progress(Progress progress) {
+        out.println("Progress: " + progress);
+      }
+
+      @Override
+      public void searchCompleted(Progress progress) {
+        out.println("Completed: " + progress);
+      }
+    };
+  }
+
+  /**
+   * Snapshot of the counters of a search.
+   */
+  final class Progress {
+
+    private final int size;
+    private final long elapsedNanos;
+    private final long combinations;
+    private final long semiprimes;
+    private final int smallestPrime;
+    private final long allocatedBytes;
+
+    Progress(int size, long elapsedNanos, long combinations, long semiprimes,
+        int smallestPrime, long allocatedBytes) {
+      this.size = size;
+      this.elapsedNanos = elapsedNanos;
+      this.combinations = combinations;
+      this.semiprimes = semiprimes;
+      this.smallestPrime = smallestPrime;
+      this.allocatedBytes = allocatedBytes;
+    }
+
+    public int getSize() {
+      return size;
+    }
+
+    /**
+     * Returns the time since the combinations started to be generated.
+     * @return The elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    /**
+     * Returns the number of combinations of factors whose neighbors have been
+     * checked so far.
+     * @return The number of combinations
+     */
+    public long getCombinations() {
+      return combinations;
+    }
+
+    public long getSemiprimes() {
+      return semiprimes;
+    }
+
+    /**
+     * Returns the share of combinations that yielded a semiprime.
+     * @return The hit rate, 0 if no combination has been checked
+     */
+    public double getHitRate() {
+      return combinations == 0 ? 0 : (double) semiprimes / combinations;
+    }
+
+    /**
+     * Returns the biggest smallest factor whose combinations have been started.
+     * @return The smallest factor
+     */
+    public int getSmallestPrime() {
+      return smallestPrime;
+    }
+
+    /**
+     * Returns the number of bytes the live threads of the JVM have allocated
+     * in total, which can be compared between two snapshots.
+     * @return The allocated bytes, or -1 if the JVM does not support it
+     */
+    public long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d combinations, %d semiprimes (%.2f%%), "
+          + "smallest factor %d of %d, %d ms", combinations, semiprimes,
+          100 * getHitRate(), smallestPrime, (int) Math.sqrt(size),
+          elapsedNanos / 1_000_000);
+    }
+  }
+
+  /**
+   * Statistics of the combinations with one smallest factor.
+   */
+  final class FactorStatistics {
+
+    private final int prime;
+    private final long combinations;
+    private final long semiprimes;
+    private final int maxDepth;
+    private final long nanos;
+
+    FactorStatistics(int prime, long combinations, long semiprimes,
+        int maxDepth, long nanos) {
+      this.prime = prime;
+      this.combinations = combinations;
+      this.semiprimes = semiprimes;
+      this.maxDepth = maxDepth;
+      this.nanos = nanos;
+    }
+
+    /**
+     * Returns the smallest factor the statistics are about.
+     * @return The smallest factor
+     */
+    public int getPrime() {
+      return prime;
+    }
+
+    public long getCombinations() {
+      return combinations;
+    }
+
+    public long getSemiprimes() {
+      return semiprimes;
+    }
+
+    /**
+     * Returns the biggest number of factors of a combination.
+     * @return The maximum depth
+     */
+    public int getMaxDepth() {
+      return maxDepth;
+    }
+
+    /**
+     * Returns the time spent on the combinations, summed over all threads.
+     * @return The time in nanoseconds
+     */
+    public long getNanos() {
+      return nanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d: %d combinations, %d semiprimes, depth %d, "
+          + "%d ms", prime, combinations, semiprimes, maxDepth,
+          nanos / 1_000_000);
+    }
+  }
+}
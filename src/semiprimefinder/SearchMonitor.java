@@ -0,0 +1,161 @@
+package semiprimefinder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the counters of a `SemiprimeFinder` search and passes them to the
+ * listener and to Flight Recorder. The search threads only add to the
+ * counters in batches, so keeping track costs close to nothing whether or not
+ * anyone listens.
+ */
+final class SearchMonitor {
+
+  /** The listener, or null */
+  private final SearchListener listener;
+
+  private final int size;
+  private final int parallelism;
+  private final long startTime = System.nanoTime();
+
+  private final LongAdder combinations = new LongAdder();
+  private final LongAdder semiprimes = new LongAdder();
+  private volatile int smallestPrime;
+
+  /** Reports the progress to the listener; null if there is none */
+  private ScheduledExecutorService progressReporter;
+
+  private final SearchEvents.Search event = new SearchEvents.Search();
+
+  SearchMonitor(SearchListener listener, int size, int parallelism,
+      long sieveNanos) {
+    this.listener = listener;
+    this.size = size;
+    this.parallelism = parallelism;
+    event.begin();
+    if (listener != null) {
+      synchronized (this) {
+        listener.sieveCompleted(size, sieveNanos);
+      }
+      long interval = listener.getProgressIntervalMillis();
+      if (interval > 0) {
+        progressReporter = Executors.newSingleThreadScheduledExecutor(r -> {
+          Thread thread = new Thread(r, "semiprime-progress");
+          thread.setDaemon(true);
+          return thread;
+        });
+        progressReporter.scheduleAtFixedRate(this::reportProgress, interval,
+            interval, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  /**
+   * Registers that the combinations with the given smallest factor are
+   * started.
+   * @param prime The smallest factor
+   */
+  void smallestFactorStarted(int prime) {
+    if (prime > smallestPrime) {
+      smallestPrime = prime;
+    }
+  }
+
+  /**
+   * Adds a batch of counts of one of the search threads.
+   * @param combinations The number of combinations that were checked
+   * @param semiprimes The number of semiprimes that were found
+   */
+  void add(long combinations, long semiprimes) {
+    this.combinations.add(combinations);
+    this.semiprimes.add(semiprimes);
+  }
+
+  /**
+   * Reports the statistics of a smallest factor whose combinations are all
+   * done.
+   */
+  void smallestFactorCompleted(int prime, long combinations, long semiprimes,
+      int maxDepth, long nanos) {
+    SearchEvents.SmallestFactor factorEvent = new SearchEvents.SmallestFactor();
+    if (factorEvent.shouldCommit()) {
+      factorEvent.prime = prime;
+      factorEvent.combinations = combinations;
+      factorEvent.semiprimes = semiprimes;
+      factorEvent.maxDepth = maxDepth;
+      factorEvent.commit();
+    }
+    if (listener != null) {
+      SearchListener.FactorStatistics statistics =
+          new SearchListener.FactorStatistics(prime, combinations, semiprimes,
+              maxDepth, nanos);
+      synchronized (this) {
+        listener.smallestFactorCompleted(statistics);
+      }
+    }
+  }
+
+  /**
+   * Ends the monitoring: stops the progress reports and reports the totals.
+   */
+  void searchCompleted() {
+    if (progressReporter != null) {
+      progressReporter.shutdownNow();
+    }
+    event.end();
+    if (event.shouldCommit()) {
+      event.size = size;
+      event.parallelism = parallelism;
+      event.combinations = combinations.sum();
+      event.semiprimes = semiprimes.sum();
+      event.commit();
+    }
+    if (listener != null) {
+      SearchListener.Progress progress = snapshot();
+      synchronized (this) {
+        listener.searchCompleted(progress);
+      }
+    }
+  }
+
+  private void reportProgress() {
+    SearchListener.Progress progress = snapshot();
+    synchronized (this) {
+      listener.progress(progress);
+    }
+  }
+
+  private SearchListener.Progress snapshot() {
+    return new SearchListener.Progress(size, System.nanoTime() - startTime,
+        combinations.sum(), semiprimes.sum(), smallestPrime,
+        allocatedBytes());
+  }
+
+  /**
+   * Returns the bytes allocated by all live threads, or -1 if the JVM cannot
+   * tell.
+   */
+  private static long allocatedBytes() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+      return -1;
+    }
+    com.sun.management.ThreadMXBean allocations =
+        (com.sun.management.ThreadMXBean) threads;
+    if (!allocations.isThreadAllocatedMemorySupported()
+        || !allocations.isThreadAllocatedMemoryEnabled()) {
+      return -1;
+    }
+    long total = 0;
+    for (long bytes : allocations
+        .getThreadAllocatedBytes(threads.getAllThreadIds())) {
+      if (bytes > 0)
+        total += bytes;
+    }
+    return total;
+  }
+}
@@ -0,0 +1,326 @@
+package semiprimefinder;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Sieve for ranges of long numbers, which may lie far beyond the int range of
+ * `PrimeSieve`. The range is sieved in windows of a fixed size with the primes
+ * up to sqrt(high), so the memory footprint only depends on the window size and
+ * on the square root of the upper bound.
+ */
+public class SegmentedPrimeSieve {
+
+  /** Default number of odd numbers per window (32 KB of bits) */
+  public static final int DEFAULT_WINDOW_SIZE = 1 << 18;
+
+  /** The lowest number to examine */
+  private long low;
+
+  /** The highest number to examine */
+  private long high;
+
+  /** The number of odd numbers that are covered by one window */
+  private int windowSize;
+
+  /** The odd prime numbers up to sqrt(high) */
+  private int[] basePrimes;
+
+  /**
+   * Creates a SegmentedPrimeSieve object for the numbers in [low, high] with
+   * the default window size.
+   * @param low The lowest number to examine
+   * @param high The highest number to examine
+   */
+  public SegmentedPrimeSieve(long low, long high) {
+    this(low, high, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * Creates a SegmentedPrimeSieve object for the numbers in [low, high]. No
+   * sieving is done until the windows are requested.
+   * @param low The lowest number to examine
+   * @param high The highest number to examine, smaller than 2^62
+   * @param windowSize The number of odd numbers to sieve per window
+   */
+  public SegmentedPrimeSieve(long low, long high, int windowSize) {
+    if (low > high || high >= 1L << 62 || windowSize < 64) {
+      throw new IllegalArgumentException("Invalid range [" + low + ", " + high
+          + "] or window size " + windowSize);
+    }
+    this.low = Math.max(low, 0);
+    this.high = high;
+    this.windowSize = windowSize;
+    this.basePrimes = computeBasePrimes(sqrt(high));
+  }
+
+  public static void main(String[] args) {
+    long low = 1_000_000_000_000L;
+    SegmentedPrimeSieve sieve = new SegmentedPrimeSieve(low, low + 10_000_000);
+    System.out.println("Primes 10^12 <= n <= 10^12 + 10^7: "
+        + sieve.countPrimes());
+  }
+
+  public long getLow() {
+    return low;
+  }
+
+  public long getHigh() {
+    return high;
+  }
+
+  /**
+   * Sieves the range window by window and passes each window to `consumer`.
+   * The same Window object is reused for all windows, so it must not be kept
+   * after `consumer` returns.
+   * @param consumer The consumer to pass each sieved window to
+   */
+  public void forEachWindow(Consumer<Window> consumer) {
+    forEachWindow(low, high, consumer);
+  }
+
+  /**
+   * Sieves the part [from, to] of the range window by window and passes each
+   * window to `consumer`. This allows to sieve different parts of the range
+   * without computing the base primes again.
+   * @param from The lowest number to examine, not smaller than `low`
+   * @param to The highest number to examine, not bigger than `high`
+   * @param consumer The consumer to pass each sieved window to
+   */
+  public void forEachWindow(long from, long to, Consumer<Window> consumer) {
+    Window window = new Window(new long[(windowSize + 63) >> 6]);
+    long windowLow = Math.max(from, low);
+    long last = Math.min(to, high);
+    while (windowLow <= last) {
+      // The window covers `windowSize` odd numbers, i.e. 2 * windowSize numbers
+      long windowHigh = Math.min(last, windowLow + 2L * windowSize - 1);
+      window.sieve(windowLow, windowHigh, basePrimes);
+      consumer.accept(window);
+      windowLow = windowHigh + 1;
+    }
+  }
+
+  /**
+   * Passes all prime numbers in the range to `consumer` in ascending order.
+   * @param consumer The consumer to pass the primes to
+   */
+  public void forEachPrime(LongConsumer consumer) {
+    forEachPrime(low, high, consumer);
+  }
+
+  /**
+   * Passes all prime numbers in [from, to] to `consumer` in ascending order.
+   * @param from The lowest number to examine, not smaller than `low`
+   * @param to The highest number to examine, not bigger than `high`
+   * @param consumer The consumer to pass the primes to
+   */
+  public void forEachPrime(long from, long to, LongConsumer consumer) {
+    forEachWindow(from, to, window -> window.forEachPrime(consumer));
+  }
+
+  /**
+   * Returns an iterator over the prime numbers in the range in ascending
+   * order. The windows are sieved while iterating, so like `forEachPrime`, only
+   * one window is held in memory.
+   * @return Iterator over the prime numbers in [low, high]
+   */
+  public PrimitiveIterator.OfLong iterator() {
+    Window window = new Window(new long[(windowSize + 63) >> 6]);
+    return new PrimitiveIterator.OfLong() {
+      /** The highest number of the sieved window */
+      private long windowHigh = low - 1;
+      private long next = findNext(low - 1);
+
+      @Override
+      public boolean hasNext() {
+        return next != 0;
+      }
+
+      @Override
+      public long nextLong() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        long current = next;
+        next = findNext(current);
+        return current;
+      }
+
+      /**
+       * Returns the next prime after `current`, sieving the next windows if
+       * needed, or 0 if there is none.
+       */
+      private long findNext(long current) {
+        long prime = current < windowHigh ? window.nextPrime(current) : 0;
+        while (prime == 0 && windowHigh < high) {
+          long windowLow = windowHigh + 1;
+          windowHigh = Math.min(high, windowLow + 2L * windowSize - 1);
+          window.sieve(windowLow, windowHigh, basePrimes);
+          prime = window.nextPrime(windowLow - 1);
+        }
+        return prime;
+      }
+    };
+  }
+
+  /**
+   * Counts the prime numbers in the range.
+   * @return The number of prime numbers in [low, high]
+   */
+  public long countPrimes() {
+    long[] count = { 0 };
+    forEachWindow(window -> count[0] += window.countPrimes());
+    return count[0];
+  }
+
+  /**
+   * Returns the largest number whose square is not bigger than `n`.
+   * @param n The number to take the square root of
+   * @return The integer square root
+   */
+  static long sqrt(long n) {
+    long root = (long) Math.sqrt(n);
+    while (root * root > n) {
+      --root;
+    }
+    while ((root + 1) * (root + 1) <= n) {
+      ++root;
+    }
+    return root;
+  }
+
+  private static int[] computeBasePrimes(long limit) {
+    int[] primes = new PrimeSieve((int) Math.max(limit, 2), true)
+        .toIntArray();
+    // Skip 2 as only odd numbers are sieved
+    return Arrays.copyOfRange(primes, 1, primes.length);
+  }
+
+  /**
+   * Sieved window of the range. Bit i of `oddDivisible` is set if the odd
+   * number firstOdd + 2i is divisible.
+   */
+  public static class Window {
+
+    private long[] oddDivisible;
+    private long low;
+    private long high;
+    private long firstOdd;
+    private int oddCount;
+
+    private Window(long[] oddDivisible) {
+      this.oddDivisible = oddDivisible;
+    }
+
+    /**
+     * Sieves the numbers in [low, high] with the given odd prime numbers, which
+     * must include all odd primes up to sqrt(high).
+     */
+    private void sieve(long low, long high, int[] basePrimes) {
+      this.low = low;
+      this.high = high;
+      firstOdd = low | 1;
+      oddCount = firstOdd > high ? 0 : (int) ((high - firstOdd) >> 1) + 1;
+      int words = (oddCount + 63) >> 6;
+      for (int i = 0; i < words; ++i) {
+        oddDivisible[i] = 0L;
+      }
+      if (firstOdd == 1) {
+        oddDivisible[0] = 1L; // 1 isn't a prime
+      }
+
+      for (int prime : basePrimes) {
+        long square = (long) prime * prime;
+        if (square > high) {
+          break;
+        }
+        // First odd multiple of `prime` that is not smaller than max(p*p, low)
+        long multiple = Math.max(square, (firstOdd + prime - 1) / prime * prime);
+        if ((multiple & 1) == 0) {
+          multiple += prime;
+        }
+        for (long index = (multiple - firstOdd) >> 1; index < oddCount; index += prime) {
+          oddDivisible[(int) (index >> 6)] |= 1L << index;
+        }
+      }
+    }
+
+    public long getLow() {
+      return low;
+    }
+
+    public long getHigh() {
+      return high;
+    }
+
+    /**
+     * Indicates whether or not `n` is a prime number. Guaranteeing that `n` is
+     * within [low, high] of the window is in the responsibility of the user.
+     * @param n The number to examine
+     * @return True if it is a prime number, false otherwise
+     */
+    public boolean isPrime(long n) {
+      if ((n & 1) == 0) {
+        return n == 2;
+      }
+      long index = (n - firstOdd) >> 1;
+      return (oddDivisible[(int) (index >> 6)] & (1L << index)) == 0;
+    }
+
+    /**
+     * Returns the next prime number of the window that is bigger than `start`.
+     * @param start The number the prime number needs to be bigger & closest to
+     * @return The next prime number, or 0 if there is none in the window
+     */
+    public long nextPrime(long start) {
+      if (start < 2 && low <= 2 && high >= 2) {
+        return 2;
+      }
+      long index = start < firstOdd ? 0 : ((start - firstOdd) >> 1) + 1;
+      if (index >= oddCount) {
+        return 0;
+      }
+      int word = (int) (index >> 6);
+      long primeBits = ~oddDivisible[word] & (-1L << index);
+      int lastWord = (oddCount - 1) >> 6;
+      while (primeBits == 0) {
+        if (++word > lastWord) {
+          return 0;
+        }
+        primeBits = ~oddDivisible[word];
+      }
+      long primeIndex = ((long) word << 6) + Long.numberOfTrailingZeros(primeBits);
+      return primeIndex < oddCount ? firstOdd + 2 * primeIndex : 0;
+    }
+
+    /**
+     * Passes all prime numbers of the window to `consumer` in ascending order.
+     * @param consumer The consumer to pass the primes to
+     */
+    public void forEachPrime(LongConsumer consumer) {
+      for (long prime = nextPrime(low - 1); prime != 0; prime = nextPrime(prime)) {
+        consumer.accept(prime);
+      }
+    }
+
+    /**
+     * Counts the prime numbers of the window.
+     * @return The number of prime numbers in [low, high]
+     */
+    public int countPrimes() {
+      int count = low <= 2 && high >= 2 ? 1 : 0;
+      int words = (oddCount + 63) >> 6;
+      for (int i = 0; i < words; ++i) {
+        long primeBits = ~oddDivisible[i];
+        if (i == words - 1 && (oddCount & 63) != 0) {
+          primeBits &= (1L << oddCount) - 1;
+        }
+        count += Long.bitCount(primeBits);
+      }
+      return count;
+    }
+  }
+}
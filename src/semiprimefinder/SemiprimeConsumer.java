@@ -0,0 +1,21 @@
+package semiprimefinder;
+
+/**
+ * Receives semiprimes one by one, e.g. from `SemiprimePublisher.forEach`.
+ */
+@FunctionalInterface
+public interface SemiprimeConsumer {
+
+  /**
+   * Handles a semiprime, i.e. a prime number for which `prime - sign` is the
+   * product of the given (distinct) prime factors.
+   * @param prime The semiprime
+   * @param sign 1 or -1
+   * @param factors Stack whose first `factorCount` elements are the factors in
+   *        ascending order; it is reused afterwards, so it must be copied if
+   *        the factors should be kept
+   * @param factorCount The number of factors
+   */
+  void accept(int prime, int sign, int[] factors, int factorCount);
+
+}
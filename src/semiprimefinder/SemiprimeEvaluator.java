@@ -1,69 +1,198 @@
 package semiprimefinder;
 
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.PrimitiveIterator;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class SemiprimeEvaluator {
 
+  private static final String CSV_HEADER =
+      "Prime,Prefix,Allowed?,k partitions,partitions";
+
+  /**
+   * Evaluates the default sizes; with the argument `--report`, the missing
+   * primes, factor counts and digit counts are written as well.
+   */
   public static void main(String[] args) {
     int[] sizes = { 100_000 };
-    for (int size : sizes) {
-      conductEvaluation(size);
+    boolean writeReports = Arrays.asList(args).contains("--report");
+    conductEvaluations(writeReports, sizes);
+  }
+
+  /**
+   * Writes the evaluation of each of the given sizes to a CSV file, like
+   * `conductEvaluation`. Only the biggest size is searched; the results of
+   * the other sizes are derived from it and all files are written
+   * concurrently.
+   * @param sizes The sizes to evaluate
+   */
+  public static void conductEvaluations(int... sizes) {
+    conductEvaluations(false, sizes);
+  }
+
+  /**
+   * Writes the evaluation of each of the given sizes to a CSV file, see
+   * `conductEvaluations(int...)`. If `writeReports` is true, the statistics of
+   * a `SemiprimeReport` are written to the files `size`_missingPrimes.txt,
+   * `size`_factorCount.txt and `size`_digitCount.txt as well.
+   * @param writeReports Whether to write the report files
+   * @param sizes The sizes to evaluate
+   */
+  public static void conductEvaluations(boolean writeReports, int... sizes) {
+    if (sizes.length == 0) {
+      return;
+    }
+    int maxSize = Arrays.stream(sizes).max().getAsInt();
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    SemiprimeFinder finder = new SemiprimeFinder(PrimeSieve.cached(maxSize,
+        PrimeSieve.CACHE_FILE, parallelism), parallelism);
+    PrimeSieve sieve = finder.getPrimeSieve();
+    finder.getResults();
+
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(sizes.length, parallelism));
+    try {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (int size : sizes) {
+        futures.add(executor.submit(() -> {
+          SemiprimeResults semiprimes = finder.getResults(size);
+          exportCsvFile(size + "_eval.csv", sieve.iterator(2, size),
+              semiprimes);
+          if (writeReports) {
+            SemiprimeReport report = SemiprimeReport.analyze(semiprimes,
+                sieve, size);
+            writeNumbersToFile(size + "_missingPrimes.txt", report);
+            writeFactorCountToFile(size + "_factorCount.txt", report);
+            writeDigitCountToFile(size + "_digitCount.txt", report);
+          }
+          System.out.println("Wrote evaluation data to files for size = "
+              + size);
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          System.out.print("Encountered exception of type "
+              + cause.getClass().getSimpleName());
+          System.out.println(" with message: " + cause.getMessage());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdown();
     }
   }
 
   public static void conductEvaluation(int size) {
-    SemiprimeFinder finder = new SemiprimeFinder(size);
-    Map<Integer, Sequence> semiprimes = finder.getSemiprimes();
-    List<Integer> primes = finder.getPrimeSieve().toList();
-
-    List<String> fileContents = prepareCsvFile(primes, semiprimes);
-    writeCsvFile(size + "_eval.csv", fileContents);
-    System.out.println("Wrote evaluation data to files for size = " + size);
-
-    /*
-     * List<Integer> missingPrimes = findMissingPrimes(primes, semiprimes);
-     * Map<Integer, Integer> factorOccurrences =
-     * numberOfOccurrences(semiprimes); Integer[] digitCount =
-     * lastDigitOfFactors(semiprimes);
-     * 
-     * writeNumbersToFile(size + "_missingPrimes.txt", missingPrimes);
-     * writeFactorCountToFile(size + "_factorCount.txt", factorOccurrences);
-     * writeDigitCountToFile(size + "_digitCount.txt", digitCount);
-     */
+    SemiprimeFinder finder = new SemiprimeFinder(
+        PrimeSieve.cached(size, PrimeSieve.CACHE_FILE, 1), 1);
+    SemiprimeResults semiprimes = finder.getResults();
+
+    try {
+      exportCsvFile(size + "_eval.csv",
+          finder.getPrimeSieve().iterator(2, size), semiprimes);
+      System.out.println("Wrote evaluation data to files for size = " + size);
+    } catch (IOException e) {
+      System.out.print("Encountered exception of type "
+          + e.getClass().getSimpleName());
+      System.out.println(" with message: " + e.getMessage());
+    }
   }
 
   /**
    * Creates CSV data based on an Excel template. Prime, Prefix, Allowed?, k
    * partitions, partitions (n fields)
-   * @param primes List of all prime numbers in a given interval
+   * @param primes All prime numbers in a given interval, in ascending order
    * @param semiprimes List of all semiprimes in the same interval
    * @return List of lines to write
    */
-  public static List<String> prepareCsvFile(List<Integer> primes,
+  public static List<String> prepareCsvFile(int[] primes,
       Map<Integer, Sequence> semiprimes) {
-    int maxSequenceLength = maxSequenceLength(semiprimes);
-    Map<Integer, Boolean> allowed = constructAllowedList(semiprimes);
-    List<String> lines = new ArrayList<String>(primes.size() + 1);
-    for (Integer prime : primes) {
-      if (semiprimes.containsKey(prime)) {
-        Boolean semiprimeAllowed = allowed.get(prime);
-        semiprimeAllowed = (semiprimeAllowed != null && semiprimeAllowed);
+    return prepareCsvFile(primes, SemiprimeResults.of(semiprimes));
+  }
+
+  /**
+   * Creates CSV data based on an Excel template, see
+   * `prepareCsvFile(int[], Map)`.
+   * @param primes All prime numbers in a given interval, in ascending order
+   * @param semiprimes All semiprimes in the same interval
+   * @return List of lines to write
+   */
+  public static List<String> prepareCsvFile(int[] primes,
+      SemiprimeResults semiprimes) {
+    int maxSequenceLength = semiprimes.maxFactorCount();
+    boolean[] allowed = constructAllowedList(semiprimes);
+    List<String> lines = new ArrayList<String>(primes.length + 1);
+    lines.add(CSV_HEADER);
+    // Both the primes and the semiprimes are sorted, so we can walk along
+    int index = 0;
+    for (int prime : primes) {
+      while (index < semiprimes.size() && semiprimes.keyAt(index) < prime) {
+        ++index;
+      }
+      if (index < semiprimes.size() && semiprimes.keyAt(index) == prime) {
         lines.add(semiprimeLine(prime, maxSequenceLength,
-            semiprimes.get(prime), semiprimeAllowed));
+            semiprimes.sequenceAt(index), allowed[index]));
       } else {
         lines.add(nonSemiprimeLine(prime, maxSequenceLength));
       }
     }
-    lines.add(0, "Prime,Prefix,Allowed?,k partitions,partitions");
     return lines;
   }
 
+  /**
+   * Writes the same CSV data as `prepareCsvFile` straight to a file while
+   * iterating over the primes. Apart from the "allowed" flag per semiprime,
+   * no memory is needed for the lines and no String is created per line.
+   * @param filename The file to write to
+   * @param primes All prime numbers in a given interval, in ascending order
+   * @param semiprimes All semiprimes in the same interval, e.g. a
+   *        `MappedSemiprimeResults` that does not fit into the heap
+   * @throws IOException If the file cannot be written
+   */
+  public static void exportCsvFile(String filename,
+      PrimitiveIterator.OfInt primes, SemiprimeTable semiprimes)
+      throws IOException {
+    int maxSequenceLength = semiprimes.maxFactorCount();
+    boolean[] allowed = constructAllowedList(semiprimes);
+    try (NumberOutput out = NumberOutput.toFile(filename)) {
+      out.write(CSV_HEADER).newLine();
+      int index = 0;
+      while (primes.hasNext()) {
+        int prime = primes.nextInt();
+        while (index < semiprimes.size() && semiprimes.keyAt(index) < prime) {
+          ++index;
+        }
+        out.write(prime).write(',');
+        if (index < semiprimes.size() && semiprimes.keyAt(index) == prime) {
+          int factorCount = semiprimes.factorCount(index);
+          out.write(semiprimes.signAt(index)).write(',')
+              .write(allowed[index] ? '1' : '0').write(',')
+              .write(factorCount - 2).write(',');
+          for (int i = 0; i < factorCount; ++i) {
+            out.write(semiprimes.factorAt(index, i)).write(',');
+          }
+          out.repeat(',', maxSequenceLength - factorCount);
+        } else {
+          out.write("0,0,").repeat(',', maxSequenceLength);
+        }
+        out.newLine();
+      }
+    }
+  }
+
   private static String nonSemiprimeLine(int prime, int maxSequenceLength) {
     // Prime, prefix, allowed?, empty k-partition, empty partitions
     return prime + ",0,0," + repeatString(",", maxSequenceLength);
@@ -71,69 +200,66 @@ public class SemiprimeEvaluator {
 
   private static String semiprimeLine(int prime, int maxSequenceLength,
       Sequence sequence, boolean allowed) {
-    String line = prime + "," + sequence.getSign() + ","
-        + (allowed ? "1" : "0") + "," + (sequence.getFactors().size() - 2)
-        + ",";
+    StringBuilder line = new StringBuilder();
+    line.append(prime).append(',').append(sequence.getSign()).append(',')
+        .append(allowed ? '1' : '0').append(',')
+        .append(sequence.getFactors().size() - 2).append(',');
     for (Integer factor : sequence.getFactors()) {
-      line += factor + ",";
+      line.append(factor).append(',');
     }
-    return line
-        + repeatString(",", maxSequenceLength - sequence.getFactors().size());
-  }
-
-  private static int maxSequenceLength(Map<Integer, Sequence> semiprimes) {
-    int max = 0;
-    for (Sequence seq : semiprimes.values()) {
-      if (seq.getFactors().size() > max) {
-        max = seq.getFactors().size();
-      }
-    }
-    return max;
+    return line.append(
+        repeatString(",", maxSequenceLength - sequence.getFactors().size()))
+        .toString();
   }
 
   private static String repeatString(String s, int times) {
-    String result = "";
+    StringBuilder result = new StringBuilder();
     for (int i = 0; i < times; ++i)
-      result += s;
-    return result;
+      result.append(s);
+    return result.toString();
   }
 
   /**
-   * Returns a map of all semiprimes, indicating whether they are "allowed" or not. They are not allowed
+   * Returns for all semiprimes whether they are "allowed" or not. They are not allowed
    * when factors are used to construct the semiprimes which are not semiprimes themselves.
    * @param semiprimes The collection of semiprimes to verify
-   * @return Map of semiprimes with boolean indicating if it's allowed
+   * @return Array with a boolean for each index of `semiprimes` indicating if it's allowed
    */
-  private static Map<Integer, Boolean> constructAllowedList(
-      Map<Integer, Sequence> semiprimes) {
-    Map<Integer, Boolean> allowed = new HashMap<Integer, Boolean>(
-        semiprimes.size());
-    allowed.put(2, true);
-    allowed.put(3, true);
-    for (Map.Entry<Integer, Sequence> entry : semiprimes.entrySet()) {
+  public static boolean[] constructAllowedList(SemiprimeTable semiprimes) {
+    boolean[] allowed = new boolean[semiprimes.size()];
+    for (int i = 0; i < semiprimes.size(); ++i) {
       boolean isAllowed = true;
-      for (Integer factor : entry.getValue().getFactors()) {
-        Boolean factorAllowed = allowed.get(factor);
-        if (factorAllowed == null || factorAllowed.equals(Boolean.FALSE)) {
-          isAllowed = false;
-          break;
+      for (int j = 0; j < semiprimes.factorCount(i); ++j) {
+        int factor = semiprimes.factorAt(i, j);
+        // 2 and 3 are always allowed; other factors are smaller than the
+        // semiprime, so their entry has been handled already
+        if (factor > 3) {
+          int factorIndex = semiprimes.indexOf(factor);
+          if (factorIndex < 0 || !allowed[factorIndex]) {
+            isAllowed = false;
+            break;
+          }
         }
       }
-      allowed.put(entry.getKey(), isAllowed);
+      allowed[i] = isAllowed;
     }
     return allowed;
   }
 
   /**
    * Find the primes for which we have not found a "semiprime" combination.
-   * @param primes List of all prime numbers in a given interval
+   * @param primes All prime numbers in a given interval, in ascending order
    * @param semiprimes List of all semiprimes in the same interval
    * @return List with the missing prime numbers.
    */
-  public static List<Integer> findMissingPrimes(List<Integer> primes,
+  public static List<Integer> findMissingPrimes(int[] primes,
       Map<Integer, Sequence> semiprimes) {
-    List<Integer> missingPrimes = new ArrayList<Integer>(primes);
-    missingPrimes.removeAll(semiprimes.keySet());
+    List<Integer> missingPrimes = new ArrayList<Integer>();
+    for (int prime : primes) {
+      if (!semiprimes.containsKey(prime)) {
+        missingPrimes.add(prime);
+      }
+    }
     return missingPrimes;
   }
 
@@ -175,29 +301,12 @@ public class SemiprimeEvaluator {
     return digitCount;
   }
 
-  private static void writeCsvFile(String filename, List<String> lines) {
-    PrintWriter writer;
-    try {
-      writer = new PrintWriter(filename, "UTF-8");
-      for (String line : lines) {
-        writer.println(line);
-      }
-      writer.close();
-    } catch (IOException e) {
-      System.out.print("Encountered exception of type "
-          + e.getClass().getSimpleName());
-      System.out.println(" with message: " + e.getMessage());
-    }
-  }
-
-  private static void writeNumbersToFile(String filename, List<Integer> list) {
-    PrintWriter writer;
-    try {
-      writer = new PrintWriter(filename, "UTF-8");
-      for (Integer i : list) {
-        writer.println(i);
+  private static void writeNumbersToFile(String filename,
+      SemiprimeReport report) {
+    try (NumberOutput out = NumberOutput.toFile(filename)) {
+      for (int prime : report.getMissingPrimes()) {
+        out.write(prime).newLine();
       }
-      writer.close();
     } catch (IOException e) {
       System.out.print("Encountered exception of type "
           + e.getClass().getSimpleName());
@@ -206,14 +315,12 @@ public class SemiprimeEvaluator {
   }
 
   private static void writeFactorCountToFile(String filename,
-      Map<Integer, Integer> factors) {
-    PrintWriter writer;
-    try {
-      writer = new PrintWriter(filename, "UTF-8");
-      for (Map.Entry<Integer, Integer> entry : factors.entrySet()) {
-        writer.println(entry.getKey() + "\t" + entry.getValue());
+      SemiprimeReport report) {
+    try (NumberOutput out = NumberOutput.toFile(filename)) {
+      for (int i = 0; i < report.getDistinctFactorCount(); ++i) {
+        out.write(report.getFactor(i)).write('\t')
+            .write(report.getOccurrences(i)).newLine();
       }
-      writer.close();
     } catch (IOException e) {
       System.out.print("Encountered exception of type "
           + e.getClass().getSimpleName());
@@ -221,14 +328,13 @@ public class SemiprimeEvaluator {
     }
   }
 
-  private static void writeDigitCountToFile(String filename, Integer[] list) {
-    PrintWriter writer;
-    try {
-      writer = new PrintWriter(filename, "UTF-8");
-      for (int i = 0; i < list.length; ++i) {
-        writer.println(i + "\t" + list[i]);
+  private static void writeDigitCountToFile(String filename,
+      SemiprimeReport report) {
+    long[] digitCounts = report.getLastDigitCounts();
+    try (NumberOutput out = NumberOutput.toFile(filename)) {
+      for (int i = 0; i < digitCounts.length; ++i) {
+        out.write(i).write('\t').write(digitCounts[i]).newLine();
       }
-      writer.close();
     } catch (IOException e) {
       System.out.print("Encountered exception of type "
           + e.getClass().getSimpleName());
@@ -3,7 +3,8 @@ package semiprimefinder;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Finds semiprimes by generating all possible numbers whose factors are only
@@ -16,144 +17,632 @@ import java.util.TreeMap;
  */
 public class SemiprimeFinder {
 
+  /**
+   * Maximum number of second factors that a task handles without splitting if
+   * none of them can be followed by a third factor.
+   */
+  private static final int LEAF_RANGE_THRESHOLD = 4096;
+
+  /**
+   * Maximum number of distinct prime factors of an int: the product of the
+   * first ten prime numbers is already bigger than Integer.MAX_VALUE.
+   */
+  static final int MAX_FACTORS = 9;
+
+  /**
+   * Each search thread passes its counters to the monitor after this number
+   * of combinations (minus one); must be a power of two minus one.
+   */
+  private static final int REPORT_MASK = (1 << 16) - 1;
+
   /** The highest number that is being investigated */
   private int size;
 
+  /** The number of threads to search with */
+  private int parallelism;
+
+  /** Collects the factors for each semiprime that is found */
+  private SemiprimeResults.Builder builder;
+
   /**
-   * List of the factors for each semiprime that was found.
+   * The factors for each semiprime that was found; built from `builder` and
+   * reset whenever new combinations are saved.
    */
-  private Map<Integer, Sequence> semiprimes;
+  private SemiprimeResults semiprimes;
 
   /** A prime sieve object to get a list of prime numbers */
   private PrimeSieve primeSieve;
 
+  /** Receives statistics while the search is running; may be null */
+  private SearchListener listener;
+
+  /** Keeps track of the counters of the current search */
+  private SearchMonitor monitor;
+
+  /** Saves the progress of the search; may be null */
+  private SearchCheckpoint checkpoint;
+
   /**
    * Constructs a new SemiprimeFinder object and generates the semiprime
    * information.
    * @param size The highest number to check
    */
   public SemiprimeFinder(int size) {
-    this.size = size;
-    semiprimes = new TreeMap<Integer, Sequence>();
-    primeSieve = new PrimeSieve(size);
-    computeAllSemiprimes();
+    this(size, 1);
+  }
+
+  /**
+   * Constructs a new SemiprimeFinder object and generates the semiprime
+   * information with `parallelism` threads. The combinations are split into
+   * fork-join tasks by their smallest and second smallest factor; the result
+   * is the same as with one thread.
+   * @param size The highest number to check
+   * @param parallelism The number of threads to use
+   */
+  public SemiprimeFinder(int size, int parallelism) {
+    this(size, parallelism, null);
+  }
+
+  /**
+   * Constructs a new SemiprimeFinder object and generates the semiprime
+   * information with `parallelism` threads, reporting the progress to
+   * `listener`.
+   * @param size The highest number to check
+   * @param parallelism The number of threads to use
+   * @param listener The listener to inform, or null
+   */
+  public SemiprimeFinder(int size, int parallelism, SearchListener listener) {
+    this(new PrimeSieve(size, true, parallelism), parallelism, listener);
+  }
+
+  /**
+   * Constructs a new SemiprimeFinder object for the size of the given sieve,
+   * e.g. one that was loaded with `PrimeSieve.cached`, and generates the
+   * semiprime information with `parallelism` threads.
+   * @param primeSieve Sieve up to the highest number to check
+   * @param parallelism The number of threads to use
+   */
+  public SemiprimeFinder(PrimeSieve primeSieve, int parallelism) {
+    this(primeSieve, parallelism, null);
+  }
+
+  /**
+   * Constructs a new SemiprimeFinder object for the size of the given sieve
+   * and generates the semiprime information with `parallelism` threads,
+   * reporting the progress to `listener`.
+   * @param primeSieve Sieve up to the highest number to check
+   * @param parallelism The number of threads to use
+   * @param listener The listener to inform, or null
+   */
+  public SemiprimeFinder(PrimeSieve primeSieve, int parallelism,
+      SearchListener listener) {
+    this(primeSieve, parallelism, listener, null);
+  }
+
+  /**
+   * Constructs a new SemiprimeFinder object for the size of the given sieve
+   * and generates the semiprime information with `parallelism` threads,
+   * saving the progress to `checkpoint`. If the checkpoint holds the state of
+   * an interrupted search of the same size, the search is resumed: the saved
+   * semiprimes are loaded and their smallest factors are skipped. The results
+   * are the same as without a checkpoint.
+   * @param primeSieve Sieve up to the highest number to check
+   * @param parallelism The number of threads to use
+   * @param listener The listener to inform, or null
+   * @param checkpoint The checkpoint to resume from and to save to, or null
+   */
+  public SemiprimeFinder(PrimeSieve primeSieve, int parallelism,
+      SearchListener listener, SearchCheckpoint checkpoint) {
+    this.size = primeSieve.getSize();
+    this.parallelism = parallelism;
+    this.listener = listener;
+    this.checkpoint = checkpoint;
+    this.primeSieve = primeSieve.hasIndex() ? primeSieve
+        : primeSieve.buildIndex();
+    builder = new SemiprimeResults.Builder();
+    if (checkpoint != null) {
+      checkpoint.resume(size, builder);
+    }
+    monitor = new SearchMonitor(listener, size, parallelism,
+        primeSieve.getSieveNanos());
+    if (parallelism > 1) {
+      computeAllSemiprimesInParallel();
+    } else {
+      computeAllSemiprimes();
+    }
+    if (checkpoint != null) {
+      checkpoint.save();
+    }
+    monitor.searchCompleted();
   }
 
   public static void main(String[] args) throws Exception {
-    SemiprimeFinder sps = new SemiprimeFinder(10_000_000);
-    PrintHelper.printSemiprimes(sps.semiprimes);
+    int size = 10_000_000;
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    SearchListener listener = null;
+    SearchCheckpoint checkpoint = null;
+    for (int i = 0; i < args.length; ++i) {
+      if (args[i].equals("--progress")) {
+        // Progress reports go to stderr so that the output stays the same
+        listener = SearchListener.printingTo(System.err);
+      } else if (args[i].equals("--checkpoint") && i + 1 < args.length) {
+        // Resumes an interrupted run with the same directory
+        checkpoint = new SearchCheckpoint(args[++i], 60_000);
+      }
+    }
+    PrimeSieve sieve = checkpoint == null
+        ? PrimeSieve.cached(size, PrimeSieve.CACHE_FILE, parallelism)
+        : checkpoint.loadSieve(size, parallelism);
+    SemiprimeFinder sps = new SemiprimeFinder(sieve, parallelism, listener,
+        checkpoint);
+    PrintHelper.printSemiprimes(sps.getResults());
   }
 
   public PrimeSieve getPrimeSieve() {
     return primeSieve;
   }
 
-  public Map<Integer, Sequence> getSemiprimes() {
+  /**
+   * Returns the semiprimes that were found, sorted in ascending order.
+   * @return The semiprimes and their factors
+   */
+  public SemiprimeResults getResults() {
+    if (semiprimes == null) {
+      semiprimes = builder.build();
+    }
     return semiprimes;
   }
 
+  /**
+   * Returns the semiprimes a search up to the smaller size `size` finds,
+   * which is nearly a prefix of the results of this search: a semiprime `size`
+   * with sign -1 has the factors of `size`+1, and smallest factors of at
+   * least sqrt(size) are not used.
+   * @param size The highest number to check, at most the size of this search
+   * @return The semiprimes and their factors for `size`
+   */
+  public SemiprimeResults getResults(int size) {
+    if (size > this.size) {
+      throw new IllegalArgumentException("The search only covers numbers up "
+          + "to " + this.size);
+    }
+    SemiprimeResults results = getResults();
+    int upperBound = (int) Math.sqrt(size);
+    int index = results.indexOf(size);
+    int toIndex = index >= 0 ? index + 1 : -index - 1;
+    return results.subset(toIndex, i -> results.factorAt(i, 0) < upperBound
+        && (results.keyAt(i) != size || results.signAt(i) == 1));
+  }
+
+  /**
+   * Returns an unmodifiable map view of `getResults()`.
+   * @return Map of the semiprimes to their factors
+   */
+  public Map<Integer, Sequence> getSemiprimes() {
+    return getResults().asMap();
+  }
+
   /**
    * Fills `isSemiprime` and `semiprimeFactors` with data up to `size`.
    */
   private void computeAllSemiprimes() {
-    int currentPrime = 2;
     int upperBound = (int) Math.sqrt(size);
-    while (currentPrime < upperBound && saveCombinations(currentPrime)) {
-      currentPrime = nextPrime(currentPrime);
+    int primeCount = primeSieve.primeCount();
+    for (int i = 0; i < primeCount; ++i) {
+      int currentPrime = primeSieve.primeAt(i);
+      if (currentPrime >= upperBound) {
+        break;
+      }
+      if (checkpoint != null && checkpoint.isCompleted(currentPrime)) {
+        continue;
+      }
+      monitor.smallestFactorStarted(currentPrime);
+      long startTime = System.nanoTime();
+      Collector collector = new Collector(newSmallestFactorBuilder());
+      boolean hasCombinations = saveCombinations(currentPrime, collector);
+      collector.report();
+      monitor.smallestFactorCompleted(currentPrime, collector.combinations,
+          collector.semiprimes(), collector.maxDepth,
+          System.nanoTime() - startTime);
+      checkpointSmallestFactor(currentPrime, collector.results);
+      if (!hasCombinations) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Parallel equivalent of `computeAllSemiprimes`: handles each smallest
+   * factor with a task, which in turn splits up the second factors.
+   */
+  private void computeAllSemiprimesInParallel() {
+    int upperBound = (int) Math.sqrt(size);
+    List<SecondFactorTask> tasks = new ArrayList<SecondFactorTask>();
+    for (int i = 0; i < primeSieve.primeCount(); ++i) {
+      int currentPrime = primeSieve.primeAt(i);
+      if (currentPrime >= upperBound) {
+        break;
+      }
+      if (checkpoint != null && checkpoint.isCompleted(currentPrime)) {
+        continue;
+      }
+      // The smallest factor on its own, then everything with a second factor
+      long startTime = System.nanoTime();
+      SemiprimeResults.Builder results = newSmallestFactorBuilder();
+      Collector collector = new Collector(results);
+      int[] factors = new int[MAX_FACTORS];
+      factors[0] = currentPrime;
+      registerSemiprime(currentPrime, factors, 1, collector);
+      collector.report();
+      int toIndex = primeSieve.pi(size / currentPrime);
+      SmallestFactorTotals totals = new SmallestFactorTotals(currentPrime,
+          toIndex - (i + 1), results);
+      if (totals.add(0, collector, System.nanoTime() - startTime)) {
+        totals.report();
+      } else {
+        tasks.add(new SecondFactorTask(totals, i + 1, toIndex));
+      }
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.invoke(new RecursiveAction() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+          invokeAll(tasks);
+        }
+      });
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Returns the builder for the semiprimes of one smallest factor: `builder`
+   * itself, unless they need to be passed to the checkpoint separately.
+   */
+  private SemiprimeResults.Builder newSmallestFactorBuilder() {
+    return checkpoint == null ? builder : new SemiprimeResults.Builder();
+  }
+
+  /**
+   * Merges the semiprimes of a completed smallest factor into `builder` and
+   * passes them to the checkpoint; does nothing without a checkpoint, as
+   * they were added to `builder` directly.
+   * @param prime The smallest factor
+   * @param results The semiprimes with the smallest factor
+   */
+  private void checkpointSmallestFactor(int prime,
+      SemiprimeResults.Builder results) {
+    if (checkpoint == null) {
+      return;
+    }
+    synchronized (builder) {
+      builder.addAll(results);
+    }
+    checkpoint.smallestFactorCompleted(prime, results);
+  }
+
+  /**
+   * Extends the search to `newSize`: the prime sieve is grown by the new
+   * segment only and only the combinations whose product is in
+   * [size, newSize] are generated, the same results as a new search up to
+   * `newSize`. The prime sieve returned by `getPrimeSieve` is extended, too.
+   * The progress of the extension is not saved to the checkpoint.
+   * @param newSize The new highest number to check; nothing happens if it is
+   *        not bigger than the current size
+   */
+  public void extendTo(int newSize) {
+    if (newSize <= size) {
+      return;
+    }
+    int oldSize = size;
+    int oldUpperBound = (int) Math.sqrt(oldSize);
+    long startTime = System.nanoTime();
+    primeSieve.extendTo(newSize);
+    size = newSize;
+    semiprimes = null;
+    monitor = new SearchMonitor(listener, size, 1,
+        System.nanoTime() - startTime);
+
+    int upperBound = (int) Math.sqrt(size);
+    int[] factors = new int[MAX_FACTORS];
+    for (int i = 0; i < primeSieve.primeCount(); ++i) {
+      int currentPrime = primeSieve.primeAt(i);
+      if (currentPrime >= upperBound) {
+        break;
+      }
+      // Smallest factors that were already allowed only need the new range;
+      // the others were skipped entirely for the old size
+      int from = currentPrime < oldUpperBound ? oldSize : 0;
+      monitor.smallestFactorStarted(currentPrime);
+      long factorStartTime = System.nanoTime();
+      Collector collector = new Collector(builder);
+      factors[0] = currentPrime;
+      registerSemiprimeInRange(currentPrime, from, factors, 1, collector);
+      saveCombinationsInRange(currentPrime, i + 1, from, factors, 1,
+          collector);
+      collector.report();
+      monitor.smallestFactorCompleted(currentPrime, collector.combinations,
+          collector.semiprimes(), collector.maxDepth,
+          System.nanoTime() - factorStartTime);
     }
+    monitor.searchCompleted();
   }
 
   /**
    * Handles all possible numbers which have prime numbers as factors that are
-   * equals to or bigger than `start`.
+   * equals to or bigger than `start`. All lengths are generated in one
+   * depth-first pass which only descends into factors that can still be
+   * followed by another one, see `saveCombinationsInRange`.
    * @param start The smallest possible factor
+   * @param collector The builder and counters to add the found semiprimes to
    * @return True if there were possible numbers (i.e. at least one number could
    *         be constructed that is smaller than `size`)
    */
-  public boolean saveCombinations(int start) {
-    int length = -1;
-    // Actually, the check should be: ++length <= log(size)/log(start)
-    // because we will never have a factor smaller than `start`
-    while (++length <= size && saveCombinations(start, length))
-      ;
-    // if size == 1, we couldn't generate any
-    // combination with `start`, so we return false
-    return (length > 0);
+  private boolean saveCombinations(int start, Collector collector) {
+    if (start > size) {
+      return false;
+    }
+    int[] factors = new int[MAX_FACTORS];
+    factors[0] = start;
+    registerSemiprime(start, factors, 1, collector);
+    saveCombinationsInRange(start, primeSieve.pi(start), 0, factors, 1,
+        collector);
+    return true;
   }
 
-  public boolean saveCombinations(int start, int size) {
-    List<Integer> history = new ArrayList<Integer>(size);
-    history.add(start);
-    return saveCombinations(start, start, size, history);
+  /**
+   * Handles all combinations consisting of the factors of `start` and at least
+   * one more, bigger factor whose product is in [from, size]. All lengths are
+   * handled in one pass: only factors up to sqrt(size / start) can be followed
+   * by another factor, so the recursion never enters a branch without
+   * combinations. The factors that can only be the last one are skipped up to
+   * the first product in range with `PrimeSieve.pi`.
+   * @param start The number to multiply the other factors with
+   * @param primeIndex The index of the smallest prime number that may be used
+   *        as a new factor
+   * @param from The smallest product to register
+   * @param factors Stack of the individual factors of `start`
+   * @param depth The number of factors on the stack
+   * @param collector The builder and counters to add the found semiprimes to
+   */
+  private void saveCombinationsInRange(int start, int primeIndex, int from,
+      int[] factors, int depth, Collector collector) {
+    int maxFactor = size / start;
+    // A factor up to sqrt(maxFactor) may be followed by another one
+    int lastFactorIndex = Math.min(primeSieve.pi((int) Math.sqrt(maxFactor)),
+        primeSieve.primeCount());
+    int i = primeIndex;
+    for (; i < lastFactorIndex; ++i) {
+      int prime = primeSieve.primeAt(i);
+      int newStart = start * prime;
+      factors[depth] = prime;
+      registerSemiprimeInRange(newStart, from, factors, depth + 1,
+          collector);
+      saveCombinationsInRange(newStart, i + 1, from, factors, depth + 1,
+          collector);
+    }
+
+    if (from > start) {
+      i = Math.max(i, primeSieve.pi((from - 1) / start));
+    }
+    int toIndex = primeSieve.pi(maxFactor);
+    for (; i < toIndex; ++i) {
+      factors[depth] = primeSieve.primeAt(i);
+      registerSemiprimeInRange(start * factors[depth], from, factors,
+          depth + 1, collector);
+    }
   }
 
   /**
-   * Construct all possible combinations of `size` prime numbers bigger/equals
-   * to `startPrime`, multiplied with `start`. This is done in a recursive
-   * fashion.
-   * 
-   * For example, getCombo(6, 5, 2, ...) could call `registerSemiprime` for the
-   * value 6*5*7, 6*5*11, and 6*7*11.
-   * @param start The number to multiply the other factors with
-   * @param startPrime The number all new factors must be bigger/equals to
-   * @param size The number of additional prime number factors required
-   * @param history A List saving all of the individual factors, i.e. `start` is
-   *        the multiplication of all elements in `history`
-   * @return True if at least one combination could be produced which is smaller
-   *         than `this.size`. False indicates that increasing the parameter
-   *         `size` with the same arguments will not produce any results
-   *         anymore.
-   */
-  private boolean saveCombinations(int start, int startPrime, int size,
-      List<Integer> history) {
-    if (size == 0) {
-      if (start > this.size) {
-        return false;
-      } else {
-        registerSemiprime(start, history);
-        return true;
-      }
-    } else {
-      --size;
-      for (int prime = nextPrime(startPrime); prime != 0; prime = nextPrime(prime)) {
-        List<Integer> newHistory = new ArrayList<Integer>(history);
-        newHistory.add(prime);
-        int newStart = start * prime;
-        if (saveCombinations(newStart, prime, size, newHistory) == false) {
-          return (prime != nextPrime(startPrime));
-        }
-      }
-      return true;
+   * Registers `realSemiprime` like `registerSemiprime` if it is in
+   * [from, size]. For `realSemiprime` == `from`, only `realSemiprime`+1 is
+   * checked as `from` is the previous size, for which `realSemiprime`-1 has
+   * been checked already.
+   * @param realSemiprime The number to investigate with -1 / +1
+   * @param from The smallest number to register, or 0 for all
+   * @param factors Stack with the factors of `realSemiprime`
+   * @param depth The number of factors on the stack
+   * @param collector The builder and counters to add the found semiprimes to
+   */
+  private void registerSemiprimeInRange(int realSemiprime, int from,
+      int[] factors, int depth, Collector collector) {
+    if (realSemiprime > from) {
+      registerSemiprime(realSemiprime, factors, depth, collector);
+    } else if (realSemiprime == from && realSemiprime + 1 <= size
+        && primeSieve.isPrime(realSemiprime + 1)) {
+      collector.results.add(realSemiprime + 1, 1, factors, depth);
     }
   }
 
   /**
    * Checks whether `realSemiprime`+1 and/or `realSemiprime`-1 are prime numbers
-   * and saves the result to `isSemiprime` if true. `realSemiprime` is never
-   * bigger than `this.size`
+   * and saves the result to `results` if true. `realSemiprime` is never bigger
+   * than `this.size`
    * @param realSemiprime The number to investigate with -1 / +1
-   * @param history List of the factors of `realSemiprime`
+   * @param factors Stack with the factors of `realSemiprime`, which is only
+   *        copied if a semiprime is found
+   * @param depth The number of factors on the stack
+   * @param collector The builder and counters to add the found semiprimes to
    */
-  private void registerSemiprime(int realSemiprime, List<Integer> history) {
-    boolean[] isPrime = {
-        realSemiprime + 1 <= size && primeSieve.isPrime(realSemiprime + 1),
-        primeSieve.isPrime(realSemiprime - 1) };
+  private void registerSemiprime(int realSemiprime, int[] factors, int depth,
+      Collector collector) {
+    collector.countCombination(depth);
+    boolean plusOneIsPrime = realSemiprime + 1 <= size
+        && primeSieve.isPrime(realSemiprime + 1);
+    boolean minusOneIsPrime = primeSieve.isPrime(realSemiprime - 1);
 
-    if (isPrime[0])
-      registerSemiprime(realSemiprime, 1, history);
-    if (isPrime[1])
-      registerSemiprime(realSemiprime, -1, history);
+    if (plusOneIsPrime)
+      collector.results.add(realSemiprime + 1, 1, factors, depth);
+    if (minusOneIsPrime)
+      collector.results.add(realSemiprime - 1, -1, factors, depth);
   }
 
-  private void registerSemiprime(int semiprime, int sign, List<Integer> factors) {
-    Sequence sequence = new Sequence(sign, factors);
-    semiprime += sign;
+  /**
+   * Fork-join task handling all combinations with the smallest factor of
+   * `totals` whose second factor has an index in [fromIndex, toIndex).
+   */
+  private class SecondFactorTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
 
-    semiprimes.put(semiprime, sequence);
+    private final SmallestFactorTotals totals;
+    private final int fromIndex;
+    private final int toIndex;
+
+    SecondFactorTask(SmallestFactorTotals totals, int fromIndex, int toIndex) {
+      this.totals = totals;
+      this.fromIndex = fromIndex;
+      this.toIndex = toIndex;
+    }
+
+    @Override
+    protected void compute() {
+      int count = toIndex - fromIndex;
+      if (count > 1 && (count > LEAF_RANGE_THRESHOLD || hasThirdFactor())) {
+        int middle = (fromIndex + toIndex) >>> 1;
+        invokeAll(new SecondFactorTask(totals, fromIndex, middle),
+            new SecondFactorTask(totals, middle, toIndex));
+        return;
+      }
+
+      // Every prime can only be reached from one combination, so the order in
+      // which the tasks add their semiprimes does not matter
+      long startTime = System.nanoTime();
+      int smallestPrime = totals.prime;
+      monitor.smallestFactorStarted(smallestPrime);
+      Collector collector = new Collector(new SemiprimeResults.Builder());
+      int[] factors = new int[MAX_FACTORS];
+      factors[0] = smallestPrime;
+      for (int i = fromIndex; i < toIndex; ++i) {
+        factors[1] = primeSieve.primeAt(i);
+        int start = smallestPrime * factors[1];
+        registerSemiprime(start, factors, 2, collector);
+        saveCombinationsInRange(start, i + 1, 0, factors, 2, collector);
+      }
+      collector.report();
+      boolean isCompleted;
+      synchronized (builder) {
+        totals.results.addAll(collector.results);
+        isCompleted = totals.add(count, collector,
+            System.nanoTime() - startTime);
+      }
+      if (isCompleted) {
+        totals.report();
+      }
+    }
+
+    /**
+     * Returns whether the second factor at `fromIndex` (and therefore maybe
+     * others in the range) can be followed by a third factor.
+     */
+    private boolean hasThirdFactor() {
+      return fromIndex + 1 < primeSieve.primeCount()
+          && (long) totals.prime * primeSieve.primeAt(fromIndex)
+              * primeSieve.primeAt(fromIndex + 1) <= size;
+    }
+  }
+
+  /**
+   * Builder of one search thread with its counters, which are passed on to
+   * `monitor` in batches.
+   */
+  private final class Collector {
+
+    final SemiprimeResults.Builder results;
+
+    /** Number of combinations passed to `registerSemiprime` */
+    long combinations;
+
+    /** Highest number of factors of the combinations */
+    int maxDepth;
+
+    private final int initialSize;
+    private long reportedCombinations;
+    private int reportedSemiprimes;
+
+    Collector(SemiprimeResults.Builder results) {
+      this.results = results;
+      this.initialSize = results.size();
+      this.reportedSemiprimes = initialSize;
+    }
+
+    void countCombination(int depth) {
+      if (depth > maxDepth) {
+        maxDepth = depth;
+      }
+      if ((++combinations & REPORT_MASK) == 0) {
+        report();
+      }
+    }
+
+    /**
+     * Returns the number of semiprimes this collector has added.
+     */
+    int semiprimes() {
+      return results.size() - initialSize;
+    }
+
+    /**
+     * Passes the counts since the last call to `monitor`.
+     */
+    void report() {
+      monitor.add(combinations - reportedCombinations,
+          results.size() - reportedSemiprimes);
+      reportedCombinations = combinations;
+      reportedSemiprimes = results.size();
+    }
   }
 
-  private int nextPrime(int start) {
-    return primeSieve.nextPrime(start);
+  /**
+   * Counters of all tasks with the same smallest factor, which are reported
+   * once the last of them is done. Only used while holding the lock on
+   * `builder`.
+   */
+  private final class SmallestFactorTotals {
+
+    final int prime;
+
+    /** The builder of the semiprimes with this smallest factor */
+    final SemiprimeResults.Builder results;
+
+    private int remainingSecondFactors;
+    private long combinations;
+    private long semiprimes;
+    private int maxDepth;
+    private long nanos;
+
+    SmallestFactorTotals(int prime, int secondFactors,
+        SemiprimeResults.Builder results) {
+      this.prime = prime;
+      this.remainingSecondFactors = secondFactors;
+      this.results = results;
+    }
+
+    /**
+     * Adds the counters of a task.
+     * @param secondFactors The number of second factors the task handled
+     * @param collector The collector of the task
+     * @param nanos The time the task took
+     * @return True if this was the last task of the smallest factor
+     */
+    boolean add(int secondFactors, Collector collector, long nanos) {
+      remainingSecondFactors -= secondFactors;
+      combinations += collector.combinations;
+      semiprimes += collector.semiprimes();
+      maxDepth = Math.max(maxDepth, collector.maxDepth);
+      this.nanos += nanos;
+      return remainingSecondFactors == 0;
+    }
+
+    void report() {
+      monitor.smallestFactorCompleted(prime, combinations, semiprimes,
+          maxDepth, nanos);
+      checkpointSmallestFactor(prime, results);
+    }
   }
 
 }
@@ -0,0 +1,233 @@
+package semiprimefinder;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams the semiprimes up to a size in ascending order instead of collecting
+ * all of them first. The range is processed in windows of `windowSize`
+ * numbers with `WindowedSemiprimeClassifier`, which finds exactly the
+ * semiprimes of `SemiprimeFinder` but prime by prime, so a window is complete
+ * as soon as its primes are classified. Only one window of results is held at
+ * a time, and the classifier sieves and factors in windows of its own, so the
+ * memory does not grow with the size.
+ *
+ * The windows can be received with `forEach` in the calling thread, or by
+ * subscribing to this publisher: every subscriber receives all windows as
+ * SemiprimeResults objects, and the next window is only computed once the
+ * subscriber has requested it.
+ */
+public class SemiprimePublisher implements Flow.Publisher<SemiprimeResults> {
+
+  /** Default number of consecutive numbers per window */
+  public static final int DEFAULT_WINDOW_SIZE = 1 << 20;
+
+  /** The highest number that is being investigated */
+  private final int size;
+
+  /** The number of consecutive numbers whose semiprimes form one window */
+  private final int windowSize;
+
+  /** The number of threads classifying the primes of a window */
+  private final int parallelism;
+
+  /** Executes the deliveries to the subscribers */
+  private final Executor executor;
+
+  /** Classifies the primes of each window */
+  private final WindowedSemiprimeClassifier classifier;
+
+  /**
+   * Creates a publisher for the semiprimes up to `size` with the default
+   * window size, classifying the primes in one thread.
+   * @param size The highest number to check
+   */
+  public SemiprimePublisher(int size) {
+    this(size, DEFAULT_WINDOW_SIZE, 1);
+  }
+
+  /**
+   * Creates a publisher for the semiprimes up to `size`, delivering to
+   * subscribers in the common fork-join pool.
+   * @param size The highest number to check
+   * @param windowSize The number of consecutive numbers per window
+   * @param parallelism The number of threads to classify a window with
+   */
+  public SemiprimePublisher(int size, int windowSize, int parallelism) {
+    this(size, windowSize, parallelism, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a publisher for the semiprimes up to `size`.
+   * @param size The highest number to check
+   * @param windowSize The number of consecutive numbers per window
+   * @param parallelism The number of threads to classify a window with
+   * @param executor The executor to compute and deliver the windows in
+   */
+  public SemiprimePublisher(int size, int windowSize, int parallelism,
+      Executor executor) {
+    if (windowSize < 1) {
+      throw new IllegalArgumentException("Invalid window size " + windowSize);
+    }
+    this.size = size;
+    this.classifier = new WindowedSemiprimeClassifier(size);
+    this.windowSize = windowSize;
+    this.parallelism = parallelism;
+    this.executor = executor;
+  }
+
+  public static void main(String[] args) {
+    SemiprimePublisher publisher = new SemiprimePublisher(100_000_000);
+    long[] counts = new long[2];
+    publisher.forEach((prime, sign, factors, factorCount) -> {
+      ++counts[sign == 1 ? 0 : 1];
+    });
+    System.out.println("Semiprimes up to 10^8: " + (counts[0] + counts[1])
+        + " (" + counts[0] + " with +1, " + counts[1] + " with -1)");
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * Passes all semiprimes to `consumer` in ascending order, computing them
+   * window by window in the calling thread.
+   * @param consumer The consumer to pass the semiprimes to
+   */
+  public void forEach(SemiprimeConsumer consumer) {
+    ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    try {
+      for (long from = 2; from <= size; from += windowSize) {
+        computeWindow(from, pool).forEach(consumer);
+      }
+    } finally {
+      if (pool != null)
+        pool.shutdown();
+    }
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super SemiprimeResults> subscriber) {
+    WindowSubscription subscription = new WindowSubscription(subscriber);
+    subscriber.onSubscribe(subscription);
+  }
+
+  /**
+   * Returns the semiprimes of the window starting at `from`.
+   */
+  private SemiprimeResults computeWindow(long from, ForkJoinPool pool) {
+    int to = (int) Math.min(size, from + windowSize - 1);
+    return classifier.classifyRange((int) from, to, pool).build();
+  }
+
+  /**
+   * Subscription of one subscriber. Requests and cancellations only update
+   * the state and schedule `run` in the executor, which computes and delivers
+   * the requested windows; `pending` ensures that only one run is active at a
+   * time, so the subscriber's methods are never called concurrently.
+   */
+  private class WindowSubscription implements Flow.Subscription, Runnable {
+
+    private final Flow.Subscriber<? super SemiprimeResults> subscriber;
+
+    /** Number of windows requested but not yet delivered */
+    private final AtomicLong demand = new AtomicLong();
+
+    /** Number of times `run` was scheduled and has not caught up */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private volatile boolean cancelled;
+
+    /** Error to signal instead of the next window, e.g. a bad request */
+    private volatile Throwable error;
+
+    /** The start of the next window; only used in `run` */
+    private long nextFrom = 2;
+
+    /** Pool to classify the windows in; only used in `run` */
+    private ForkJoinPool pool;
+
+    WindowSubscription(Flow.Subscriber<? super SemiprimeResults> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        error = new IllegalArgumentException(
+            "Number of requested windows must be positive, was " + n);
+      } else {
+        demand.getAndAccumulate(n,
+            (current, added) -> current + added < 0 ? Long.MAX_VALUE
+                : current + added);
+      }
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      schedule();
+    }
+
+    private void schedule() {
+      if (pending.getAndIncrement() == 0) {
+        executor.execute(this);
+      }
+    }
+
+    @Override
+    public void run() {
+      int missed = 1;
+      do {
+        drain();
+        missed = pending.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void drain() {
+      while (!cancelled) {
+        if (error != null) {
+          finish();
+          subscriber.onError(error);
+        } else if (nextFrom > size) {
+          finish();
+          subscriber.onComplete();
+        } else if (demand.get() > 0) {
+          SemiprimeResults window;
+          try {
+            if (pool == null && parallelism > 1) {
+              pool = new ForkJoinPool(parallelism);
+            }
+            window = computeWindow(nextFrom, pool);
+          } catch (RuntimeException e) {
+            finish();
+            subscriber.onError(e);
+            return;
+          }
+          nextFrom += windowSize;
+          demand.decrementAndGet();
+          subscriber.onNext(window);
+        } else {
+          return;
+        }
+      }
+      finish();
+    }
+
+    /**
+     * Marks the subscription as done and releases the pool.
+     */
+    private void finish() {
+      cancelled = true;
+      if (pool != null) {
+        pool.shutdown();
+        pool = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,417 @@
+package semiprimefinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Answers whether single prime numbers are semiprimes without searching a
+ * whole range: the neighbors p-1 and p+1 are factored on demand by trial
+ * division with a table of small prime numbers, and the answers are kept in a
+ * cache of bounded size that evicts the least recently used ones.
+ *
+ * A prime p is considered a semiprime if `SemiprimeFinder` finds it for sizes
+ * bigger than p, so p = 2 (with 3 = 2 + 1) is one.
+ *
+ * The table of small primes is a `PrimeSieve` with index that is extended
+ * when the square root of a neighbor exceeds it, up to `MAX_TABLE_SIZE`. A
+ * cofactor is tested with `MillerRabin` after every factor that was divided
+ * out, so trial division usually stops long before the square root. A
+ * composite cofactor without factors in the table is split with `PollardRho`.
+ *
+ * The service is thread-safe. Only the cache and the extension of the table
+ * are locked, so queries are classified concurrently; two threads may both
+ * classify a prime that is not cached yet.
+ */
+public class SemiprimeQueryService {
+
+  /** Default number of answers in the cache */
+  public static final int DEFAULT_CACHE_SIZE = 1 << 16;
+
+  /** Initial size of the table, covering the factors of all int neighbors */
+  private static final int INITIAL_TABLE_SIZE = 1 << 16;
+
+  /** The table of small primes is not extended beyond this size */
+  private static final int MAX_TABLE_SIZE = 1 << 26;
+
+  /**
+   * Maximum number of distinct prime factors of a long, see
+   * `LongSemiprimeFinder`.
+   */
+  private static final int MAX_FACTORS = 15;
+
+  /** Marks primes in the cache that are not semiprimes */
+  private static final LongSequence NO_SEMIPRIME =
+      new LongSequence(0, new long[0]);
+
+  /** Sieve with index for the factors used in trial division */
+  private PrimeSieve table;
+
+  /** Write lock to extend or replace `table`, read lock to use it */
+  private final ReadWriteLock tableLock = new ReentrantReadWriteLock();
+
+  /**
+   * The recent answers by prime number in access order; also guards the
+   * counters
+   */
+  private final Map<Long, LongSequence> cache;
+
+  private long cacheHits;
+  private long cacheMisses;
+
+  /**
+   * Creates a query service with the default cache size.
+   */
+  public SemiprimeQueryService() {
+    this(DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Creates a query service.
+   * @param cacheSize The maximum number of answers to keep, 0 to keep none
+   */
+  public SemiprimeQueryService(int cacheSize) {
+    if (cacheSize < 0) {
+      throw new IllegalArgumentException("Invalid cache size " + cacheSize);
+    }
+    table = new PrimeSieve(INITIAL_TABLE_SIZE, true).buildIndex();
+    cache = new LinkedHashMap<Long, LongSequence>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, LongSequence> e) {
+        return size() > cacheSize;
+      }
+    };
+  }
+
+  public static void main(String[] args) {
+    SemiprimeQueryService service = new SemiprimeQueryService();
+    for (long prime : new long[] { 2, 3, 7, 31, 211, 2_147_483_647L,
+        1_000_000_000_039L }) {
+      LongSequence sequence = service.lookup(prime);
+      System.out.println(prime + ": "
+          + (sequence == null ? "no semiprime" : sequence));
+    }
+
+    int[] primes = new PrimeSieve(10_000_000, true).toIntArray();
+    long start = System.nanoTime();
+    Sequence[] sequences = service.lookupBatch(primes);
+    long nanos = System.nanoTime() - start;
+    int count = 0;
+    for (Sequence sequence : sequences) {
+      if (sequence != null)
+        ++count;
+    }
+    System.out.println("Semiprimes up to 10^7: " + count + " ("
+        + nanos / primes.length + " ns per query)");
+  }
+
+  /**
+   * Returns the factors of the neighbor of `prime` if it is a semiprime.
+   * @param prime The number to look up
+   * @return The sign and factors of the semiprime, or null if `prime` is no
+   *         prime number or not a semiprime
+   */
+  public Sequence lookup(int prime) {
+    return toSequence(lookup((long) prime));
+  }
+
+  /**
+   * Returns the factors of the neighbor of `prime` if it is a semiprime.
+   * @param prime The number to look up, smaller than 2^62
+   * @return The sign and factors of the semiprime, or null if `prime` is no
+   *         prime number or not a semiprime
+   */
+  public LongSequence lookup(long prime) {
+    if (prime >= 1L << 62) {
+      throw new IllegalArgumentException("Invalid prime " + prime);
+    }
+    LongSequence sequence;
+    synchronized (cache) {
+      sequence = cache.get(prime);
+      if (sequence != null) {
+        ++cacheHits;
+      } else {
+        ++cacheMisses;
+      }
+    }
+    if (sequence == null) {
+      sequence = classify(prime);
+      synchronized (cache) {
+        cache.put(prime, sequence);
+      }
+    }
+    return sequence == NO_SEMIPRIME ? null : sequence;
+  }
+
+  /**
+   * Looks up several numbers, see `lookup(int)`.
+   * @param primes The numbers to look up
+   * @return The sequence for each number at the same index, null for numbers
+   *         that are not semiprimes
+   */
+  public Sequence[] lookupBatch(int[] primes) {
+    Sequence[] sequences = new Sequence[primes.length];
+    for (int i = 0; i < primes.length; ++i) {
+      sequences[i] = lookup(primes[i]);
+    }
+    return sequences;
+  }
+
+  /**
+   * Looks up several numbers, see `lookup(long)`.
+   * @param primes The numbers to look up
+   * @return The sequence for each number at the same index, null for numbers
+   *         that are not semiprimes
+   */
+  public LongSequence[] lookupBatch(long[] primes) {
+    LongSequence[] sequences = new LongSequence[primes.length];
+    for (int i = 0; i < primes.length; ++i) {
+      sequences[i] = lookup(primes[i]);
+    }
+    return sequences;
+  }
+
+  /**
+   * Returns the number of lookups that were answered from the cache.
+   * @return The number of cache hits
+   */
+  public long getCacheHits() {
+    synchronized (cache) {
+      return cacheHits;
+    }
+  }
+
+  /**
+   * Returns the number of lookups for which the neighbors were factored.
+   * @return The number of cache misses
+   */
+  public long getCacheMisses() {
+    synchronized (cache) {
+      return cacheMisses;
+    }
+  }
+
+  /**
+   * Removes all answers from the cache and shrinks the table of small primes
+   * to its initial size.
+   */
+  public void clear() {
+    synchronized (cache) {
+      cache.clear();
+    }
+    tableLock.writeLock().lock();
+    try {
+      if (table.getSize() > INITIAL_TABLE_SIZE) {
+        table = new PrimeSieve(INITIAL_TABLE_SIZE, true).buildIndex();
+      }
+    } finally {
+      tableLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Determines the sequence of `prime`. At most one neighbor of a prime can
+   * be squarefree: of two even numbers that are 2 apart, one is divisible by 4.
+   */
+  private LongSequence classify(long prime) {
+    if (!isPrime(prime)) {
+      return NO_SEMIPRIME;
+    }
+    Factorization factorization = factorSquarefree(prime - 1);
+    if (factorization != null) {
+      return new LongSequence(1, factorization.getFactors());
+    }
+    factorization = factorSquarefree(prime + 1);
+    if (factorization != null) {
+      return new LongSequence(-1, factorization.getFactors());
+    }
+    return NO_SEMIPRIME;
+  }
+
+  private boolean isPrime(long n) {
+    tableLock.readLock().lock();
+    try {
+      if (n <= table.getSize()) {
+        return table.isPrime((int) n);
+      }
+    } finally {
+      tableLock.readLock().unlock();
+    }
+    return MillerRabin.isPrime(n);
+  }
+
+  /**
+   * Factors `n` if it is squarefree.
+   * @param n The number to factor
+   * @return The factors, or null if `n` is not squarefree or smaller than 2
+   */
+  private Factorization factorSquarefree(long n) {
+    if (n < 2) {
+      return null;
+    }
+    Factorization factorization = new Factorization(n);
+    int i = 0;
+    while (true) {
+      long tableSize;
+      tableLock.readLock().lock();
+      try {
+        int primeCount = table.primeCount();
+        for (; i < primeCount; ++i) {
+          long prime = table.primeAt(i);
+          if (prime * prime > factorization.rest) {
+            return factorization.finish() ? factorization : null;
+          }
+          if (!factorization.divide(prime)) {
+            return null;
+          }
+        }
+        tableSize = table.getSize();
+      } finally {
+        tableLock.readLock().unlock();
+      }
+      long root = SegmentedPrimeSieve.sqrt(factorization.rest);
+      if (root <= tableSize || tableSize >= MAX_TABLE_SIZE) {
+        break;
+      }
+      extendTable(root);
+    }
+
+    // The rest has no factors up to the table size
+    return factorization.splitRest() && factorization.finish() ? factorization
+        : null;
+  }
+
+  /**
+   * Extends the table of small primes so that it covers `root`, doubling its
+   * size at least, unless another thread has done so already.
+   */
+  private void extendTable(long root) {
+    tableLock.writeLock().lock();
+    try {
+      if (table.getSize() < Math.min(root, MAX_TABLE_SIZE)) {
+        table.extendTo((int) Math.min(MAX_TABLE_SIZE,
+            Math.max(root, 2L * table.getSize())));
+      }
+    } finally {
+      tableLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Converts a cached answer for an int prime, whose factors are ints.
+   */
+  private static Sequence toSequence(LongSequence sequence) {
+    if (sequence == null) {
+      return null;
+    }
+    List<Integer> intFactors =
+        new ArrayList<Integer>(sequence.getFactorCount());
+    for (int i = 0; i < sequence.getFactorCount(); ++i) {
+      intFactors.add((int) sequence.getFactor(i));
+    }
+    return new Sequence(sequence.getSign(), intFactors);
+  }
+
+  /**
+   * State of the factorization of a number.
+   */
+  private static class Factorization {
+
+    /** The part of the number that has not been factored yet */
+    long rest;
+
+    /** The factors found so far */
+    private final long[] factors = new long[MAX_FACTORS];
+
+    private int count;
+
+    private boolean isSquarefree = true;
+
+    Factorization(long n) {
+      rest = n;
+    }
+
+    /**
+     * Divides the rest by `prime` if possible.
+     * @param prime The next prime factor to try
+     * @return False if the number turned out not to be squarefree, true
+     *         otherwise
+     */
+    boolean divide(long prime) {
+      if (!isSquarefree || rest % prime != 0) {
+        return isSquarefree;
+      }
+      rest /= prime;
+      factors[count++] = prime;
+      isSquarefree = rest % prime != 0;
+      if (isSquarefree && rest > 1 && MillerRabin.isPrime(rest)) {
+        factors[count++] = rest;
+        rest = 1;
+      }
+      return isSquarefree;
+    }
+
+    /**
+     * Adds the prime factors of the rest, which has no factors in the table,
+     * and sets the rest to 1.
+     * @return False if the number turned out not to be squarefree, true
+     *         otherwise
+     */
+    boolean splitRest() {
+      long n = rest;
+      rest = 1;
+      return split(n);
+    }
+
+    /**
+     * Adds the prime factors of `n`, which is odd, with `PollardRho`. The
+     * factors are added in any order.
+     * @param n The number to factor
+     * @return False if `n` turned out not to be squarefree, true otherwise
+     */
+    boolean split(long n) {
+      if (n == 1) {
+        return true;
+      }
+      if (MillerRabin.isPrime(n)) {
+        factors[count++] = n;
+        return true;
+      }
+      long root = SegmentedPrimeSieve.sqrt(n);
+      if (root * root == n) {
+        return isSquarefree = false;
+      }
+      long divisor = PollardRho.findDivisor(n);
+      return split(divisor) && split(n / divisor);
+    }
+
+    /**
+     * Adds the rest, which is 1 or a prime number, as last factor and sorts
+     * the factors.
+     * @return False if the number is not squarefree, true otherwise
+     */
+    boolean finish() {
+      Arrays.sort(factors, 0, count);
+      for (int i = 1; i < count; ++i) {
+        if (factors[i] == factors[i - 1]) {
+          isSquarefree = false;
+        }
+      }
+      if (rest > 1) {
+        factors[count++] = rest;
+        rest = 1;
+      }
+      return isSquarefree;
+    }
+
+    long[] getFactors() {
+      return Arrays.copyOf(factors, count);
+    }
+  }
+}
@@ -0,0 +1,224 @@
+package semiprimefinder;
+
+import java.util.Arrays;
+
+/**
+ * Statistics on semiprime results that `SemiprimeEvaluator` otherwise computes
+ * in separate passes over boxed maps: which semiprimes are allowed (see
+ * `SemiprimeEvaluator.constructAllowedList`), the prime numbers without a
+ * semiprime combination, how many times each factor is used and how many
+ * factors end with each digit.
+ *
+ * Everything is computed in one pass over the results with primitive
+ * counters. Prime numbers are addressed by their index in the prime sieve, so
+ * no lookup in the results is needed.
+ */
+public class SemiprimeReport {
+
+  private final int semiprimeCount;
+  private final int maxSequenceLength;
+
+  /** Bit per entry of the results: set if the semiprime is allowed */
+  private final long[] allowed;
+  private final int allowedCount;
+
+  private final int[] missingPrimes;
+
+  /** The distinct factors in ascending order and their number of uses */
+  private final int[] factors;
+  private final int[] occurrences;
+
+  private final long[] lastDigitCounts;
+
+  private SemiprimeReport(int semiprimeCount, int maxSequenceLength,
+      long[] allowed, int allowedCount, int[] missingPrimes, int[] factors,
+      int[] occurrences, long[] lastDigitCounts) {
+    this.semiprimeCount = semiprimeCount;
+    this.maxSequenceLength = maxSequenceLength;
+    this.allowed = allowed;
+    this.allowedCount = allowedCount;
+    this.missingPrimes = missingPrimes;
+    this.factors = factors;
+    this.occurrences = occurrences;
+    this.lastDigitCounts = lastDigitCounts;
+  }
+
+  /**
+   * Analyzes the given semiprimes in one pass.
+   * @param semiprimes The semiprimes to analyze
+   * @param primeSieve Sieve covering all semiprimes and their factors; the
+   *        missing prime numbers are searched up to its size. The index is
+   *        built if it does not exist yet.
+   * @return The report
+   */
+  public static SemiprimeReport analyze(SemiprimeResults semiprimes,
+      PrimeSieve primeSieve) {
+    return analyze(semiprimes, primeSieve, primeSieve.getSize());
+  }
+
+  /**
+   * Analyzes the given semiprimes up to `size` in one pass, e.g. the results
+   * of `SemiprimeFinder.getResults(size)` with the sieve of a bigger search.
+   * @param semiprimes The semiprimes to analyze, none bigger than `size`
+   * @param primeSieve Sieve covering at least `size`. The index is built if
+   *        it does not exist yet.
+   * @param size The number to search the missing prime numbers up to
+   * @return The report
+   */
+  public static SemiprimeReport analyze(SemiprimeResults semiprimes,
+      PrimeSieve primeSieve, int size) {
+    if (size > primeSieve.getSize()) {
+      throw new IllegalArgumentException("The sieve only covers numbers up to "
+          + primeSieve.getSize());
+    }
+    int count = semiprimes.size();
+    if (count > 0 && semiprimes.keyAt(count - 1) > size) {
+      throw new IllegalArgumentException("Semiprime "
+          + semiprimes.keyAt(count - 1) + " is bigger than " + size);
+    }
+    primeSieve.buildIndex();
+    int primeCount = primeSieve.pi(size);
+
+    long[] allowed = new long[(count + 63) >> 6];
+    // Same information by the index of the prime number, for the factors
+    long[] allowedPrimes = new long[(primeCount + 63) >> 6];
+    int allowedCount = 0;
+    int[] missingPrimes = new int[primeCount - count];
+    int missingCount = 0;
+    int[] primeOccurrences = new int[primeCount];
+    long[] lastDigitCounts = new long[10];
+
+    int nextRank = 0; // index of the first prime after the previous semiprime
+    for (int i = 0; i < count; ++i) {
+      int rank = primeSieve.pi(semiprimes.keyAt(i)) - 1;
+      while (nextRank < rank) {
+        missingPrimes[missingCount++] = primeSieve.primeAt(nextRank++);
+      }
+      nextRank = rank + 1;
+
+      boolean isAllowed = true;
+      for (int j = 0; j < semiprimes.factorCount(i); ++j) {
+        int factor = semiprimes.factorAt(i, j);
+        int factorRank = primeSieve.pi(factor) - 1;
+        ++primeOccurrences[factorRank];
+        ++lastDigitCounts[factor % 10];
+        // 2 and 3 are always allowed; other factors are smaller than the
+        // semiprime, so their bit has been set already if they are allowed
+        if (factor > 3 && (allowedPrimes[factorRank >> 6]
+            & (1L << factorRank)) == 0) {
+          isAllowed = false;
+        }
+      }
+      if (isAllowed) {
+        allowed[i >> 6] |= 1L << i;
+        allowedPrimes[rank >> 6] |= 1L << rank;
+        ++allowedCount;
+      }
+    }
+    while (nextRank < primeCount) {
+      missingPrimes[missingCount++] = primeSieve.primeAt(nextRank++);
+    }
+
+    int distinctFactors = 0;
+    for (int occurrence : primeOccurrences) {
+      if (occurrence > 0)
+        ++distinctFactors;
+    }
+    int[] factors = new int[distinctFactors];
+    int[] occurrences = new int[distinctFactors];
+    int k = 0;
+    for (int rank = 0; rank < primeCount; ++rank) {
+      if (primeOccurrences[rank] > 0) {
+        factors[k] = primeSieve.primeAt(rank);
+        occurrences[k++] = primeOccurrences[rank];
+      }
+    }
+
+    return new SemiprimeReport(count, semiprimes.maxFactorCount(), allowed,
+        allowedCount, missingPrimes, factors, occurrences, lastDigitCounts);
+  }
+
+  public int getSemiprimeCount() {
+    return semiprimeCount;
+  }
+
+  /**
+   * Returns the biggest number of factors of a semiprime.
+   * @return The maximum sequence length
+   */
+  public int getMaxSequenceLength() {
+    return maxSequenceLength;
+  }
+
+  /**
+   * Returns whether the semiprime with the given index in the analyzed
+   * results is allowed, i.e. all of its factors are 2, 3 or allowed
+   * semiprimes themselves.
+   * @param index The index of the semiprime in the results
+   * @return True if it is allowed, false otherwise
+   */
+  public boolean isAllowed(int index) {
+    return (allowed[index >> 6] & (1L << index)) != 0;
+  }
+
+  public int getAllowedCount() {
+    return allowedCount;
+  }
+
+  /**
+   * Returns the prime numbers for which no semiprime combination was found.
+   * @return The missing prime numbers in ascending order
+   */
+  public int[] getMissingPrimes() {
+    return missingPrimes.clone();
+  }
+
+  public int getMissingPrimeCount() {
+    return missingPrimes.length;
+  }
+
+  /**
+   * Returns the number of different prime numbers that are used as factors.
+   * @return The number of distinct factors
+   */
+  public int getDistinctFactorCount() {
+    return factors.length;
+  }
+
+  /**
+   * Returns the factor with the given index; the factors are sorted in
+   * ascending order.
+   * @param index The index, smaller than `getDistinctFactorCount()`
+   * @return The factor
+   */
+  public int getFactor(int index) {
+    return factors[index];
+  }
+
+  /**
+   * Returns how many times the factor with the given index is used.
+   * @param index The index, smaller than `getDistinctFactorCount()`
+   * @return The number of semiprimes with the factor
+   */
+  public int getOccurrences(int index) {
+    return occurrences[index];
+  }
+
+  /**
+   * Returns how many times the given factor is used.
+   * @param factor The factor to look up
+   * @return The number of semiprimes with the factor, 0 if it is never used
+   */
+  public int getOccurrencesOf(int factor) {
+    int index = Arrays.binarySearch(factors, factor);
+    return index < 0 ? 0 : occurrences[index];
+  }
+
+  /**
+   * Returns how many factors end with each digit.
+   * @return Array where the index corresponds to the last digit
+   */
+  public long[] getLastDigitCounts() {
+    return lastDigitCounts.clone();
+  }
+}
@@ -0,0 +1,374 @@
+package semiprimefinder;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * Compact, immutable store of semiprimes and their factors, sorted by the
+ * semiprime. Instead of one object per entry, all data is kept in primitive
+ * arrays: the semiprimes in `keys`, their sign in `signs`, and the factors of
+ * all entries one after another in `factors`, where the factors of entry i are
+ * factors[offsets[i]] to factors[offsets[i + 1] - 1].
+ */
+public class SemiprimeResults implements SemiprimeTable {
+
+  private final int[] keys;
+  private final byte[] signs;
+  private final int[] offsets;
+  private final int[] factors;
+
+  private SemiprimeResults(int[] keys, byte[] signs, int[] offsets,
+      int[] factors) {
+    this.keys = keys;
+    this.signs = signs;
+    this.offsets = offsets;
+    this.factors = factors;
+  }
+
+  /**
+   * Creates a SemiprimeResults object with the entries of the given map.
+   * @param semiprimes The semiprimes and their factors
+   * @return The results
+   */
+  public static SemiprimeResults of(Map<Integer, Sequence> semiprimes) {
+    if (semiprimes instanceof MapView) {
+      return ((MapView) semiprimes).results;
+    }
+    Builder builder = new Builder();
+    int[] factors = new int[8];
+    for (Map.Entry<Integer, Sequence> entry : semiprimes.entrySet()) {
+      List<Integer> factorList = entry.getValue().getFactors();
+      if (factorList.size() > factors.length) {
+        factors = new int[factorList.size()];
+      }
+      for (int i = 0; i < factorList.size(); ++i) {
+        factors[i] = factorList.get(i);
+      }
+      builder.add(entry.getKey(), entry.getValue().getSign(), factors,
+          factorList.size());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the number of semiprimes.
+   * @return The number of entries
+   */
+  public int size() {
+    return keys.length;
+  }
+
+  /**
+   * Returns the index of the given semiprime with a binary search.
+   * @param prime The semiprime to look up
+   * @return The index of the entry, or a negative number if there is none
+   */
+  public int indexOf(int prime) {
+    return Arrays.binarySearch(keys, prime);
+  }
+
+  public boolean contains(int prime) {
+    return indexOf(prime) >= 0;
+  }
+
+  /**
+   * Returns the factors of the given semiprime.
+   * @param prime The semiprime to look up
+   * @return Immutable sequence of the semiprime, or null if there is none
+   */
+  public Sequence get(int prime) {
+    int index = indexOf(prime);
+    return index < 0 ? null : sequenceAt(index);
+  }
+
+  public int keyAt(int index) {
+    return keys[index];
+  }
+
+  public int signAt(int index) {
+    return signs[index];
+  }
+
+  public int factorCount(int index) {
+    return offsets[index + 1] - offsets[index];
+  }
+
+  /**
+   * Returns a factor of the semiprime at the given index.
+   * @param index The index of the entry
+   * @param factorIndex The index of the factor, smaller than `factorCount`
+   * @return The factor
+   */
+  public int factorAt(int index, int factorIndex) {
+    return factors[offsets[index] + factorIndex];
+  }
+
+  /**
+   * Returns an immutable Sequence backed by the data of the given entry.
+   * @param index The index of the entry
+   * @return The sequence of the entry
+   */
+  public Sequence sequenceAt(int index) {
+    return new SequenceView(signs[index], offsets[index], offsets[index + 1]);
+  }
+
+  /**
+   * Returns the highest number of factors of any entry.
+   * @return The maximum factor count, 0 if there are no entries
+   */
+  public int maxFactorCount() {
+    int max = 0;
+    for (int i = 0; i < keys.length; ++i) {
+      max = Math.max(max, factorCount(i));
+    }
+    return max;
+  }
+
+  /**
+   * Returns the entries with an index smaller than `toIndex` for which
+   * `include` is true, in the same order.
+   * @param toIndex The index after the last entry to consider
+   * @param include Predicate on the index of an entry
+   * @return The selected entries
+   */
+  public SemiprimeResults subset(int toIndex, IntPredicate include) {
+    int count = 0;
+    int factorCount = 0;
+    for (int i = 0; i < toIndex; ++i) {
+      if (include.test(i)) {
+        ++count;
+        factorCount += factorCount(i);
+      }
+    }
+
+    int[] subsetKeys = new int[count];
+    byte[] subsetSigns = new byte[count];
+    int[] subsetOffsets = new int[count + 1];
+    int[] subsetFactors = new int[factorCount];
+    int k = 0;
+    for (int i = 0; i < toIndex; ++i) {
+      if (include.test(i)) {
+        subsetKeys[k] = keys[i];
+        subsetSigns[k] = signs[i];
+        int offset = subsetOffsets[k];
+        System.arraycopy(factors, offsets[i], subsetFactors, offset,
+            factorCount(i));
+        subsetOffsets[++k] = offset + factorCount(i);
+      }
+    }
+    return new SemiprimeResults(subsetKeys, subsetSigns, subsetOffsets,
+        subsetFactors);
+  }
+
+  /**
+   * Passes all entries to `consumer` in ascending order.
+   * @param consumer The consumer to pass the semiprimes to
+   */
+  public void forEach(SemiprimeConsumer consumer) {
+    int[] factorStack = new int[maxFactorCount()];
+    for (int i = 0; i < keys.length; ++i) {
+      int factorCount = factorCount(i);
+      System.arraycopy(factors, offsets[i], factorStack, 0, factorCount);
+      consumer.accept(keys[i], signs[i], factorStack, factorCount);
+    }
+  }
+
+  /**
+   * Returns an unmodifiable map view of the results, iterating over the
+   * semiprimes in ascending order. Lookups use a binary search.
+   * @return Map of each semiprime to its sequence
+   */
+  public Map<Integer, Sequence> asMap() {
+    return new MapView(this);
+  }
+
+  /**
+   * Collects semiprimes in any order and sorts them once `build` is called.
+   * Every semiprime may only be added once.
+   */
+  public static class Builder {
+
+    private int count;
+    private int[] keys = new int[1024];
+    private byte[] signs = new byte[1024];
+    private int[] offsets = new int[1025];
+    private int[] factors = new int[4096];
+
+    /**
+     * Adds a semiprime, copying its factors.
+     * @param prime The semiprime
+     * @param sign 1 or -1
+     * @param factorStack Array whose first `factorCount` elements are the
+     *        factors
+     * @param factorCount The number of factors
+     */
+    public void add(int prime, int sign, int[] factorStack, int factorCount) {
+      if (count == keys.length) {
+        keys = Arrays.copyOf(keys, count * 2);
+        signs = Arrays.copyOf(signs, count * 2);
+        offsets = Arrays.copyOf(offsets, count * 2 + 1);
+      }
+      int offset = offsets[count];
+      if (offset + factorCount > factors.length) {
+        factors = Arrays.copyOf(factors,
+            Math.max(factors.length * 2, offset + factorCount));
+      }
+      System.arraycopy(factorStack, 0, factors, offset, factorCount);
+      keys[count] = prime;
+      signs[count] = (byte) sign;
+      offsets[++count] = offset + factorCount;
+    }
+
+    /**
+     * Adds all semiprimes of another builder.
+     * @param other The builder whose semiprimes should be added
+     */
+    public void addAll(Builder other) {
+      int[] factorStack = new int[0];
+      for (int i = 0; i < other.count; ++i) {
+        int factorCount = other.offsets[i + 1] - other.offsets[i];
+        if (factorStack.length < factorCount) {
+          factorStack = new int[factorCount];
+        }
+        System.arraycopy(other.factors, other.offsets[i], factorStack, 0,
+            factorCount);
+        add(other.keys[i], other.signs[i], factorStack, factorCount);
+      }
+    }
+
+    public int size() {
+      return count;
+    }
+
+    /**
+     * Creates the results sorted by semiprime. The builder may still be used
+     * afterwards.
+     * @return The results
+     */
+    public SemiprimeResults build() {
+      // Sort by key while keeping track of the original index
+      long[] order = new long[count];
+      for (int i = 0; i < count; ++i) {
+        order[i] = ((long) keys[i] << 32) | i;
+      }
+      Arrays.parallelSort(order);
+
+      int[] sortedKeys = new int[count];
+      byte[] sortedSigns = new byte[count];
+      int[] sortedOffsets = new int[count + 1];
+      int[] sortedFactors = new int[offsets[count]];
+      for (int i = 0; i < count; ++i) {
+        int index = (int) order[i];
+        int factorCount = offsets[index + 1] - offsets[index];
+        sortedKeys[i] = keys[index];
+        sortedSigns[i] = signs[index];
+        System.arraycopy(factors, offsets[index], sortedFactors,
+            sortedOffsets[i], factorCount);
+        sortedOffsets[i + 1] = sortedOffsets[i] + factorCount;
+      }
+      return new SemiprimeResults(sortedKeys, sortedSigns, sortedOffsets,
+          sortedFactors);
+    }
+  }
+
+  /**
+   * Immutable Sequence whose factors are the range [from, to) of `factors`.
+   */
+  private class SequenceView extends Sequence {
+
+    SequenceView(int sign, int from, int to) {
+      super(sign, new AbstractList<Integer>() {
+        @Override
+        public Integer get(int index) {
+          if (index < 0 || index >= to - from) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+          }
+          return factors[from + index];
+        }
+
+        @Override
+        public int size() {
+          return to - from;
+        }
+      });
+    }
+
+    @Override
+    public void setSign(int sign) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setFactors(List<Integer> factors) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * Unmodifiable Map view of the results.
+   */
+  private static class MapView extends AbstractMap<Integer, Sequence> {
+
+    private final SemiprimeResults results;
+
+    MapView(SemiprimeResults results) {
+      this.results = results;
+    }
+
+    @Override
+    public int size() {
+      return results.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return key instanceof Integer && results.contains((Integer) key);
+    }
+
+    @Override
+    public Sequence get(Object key) {
+      return key instanceof Integer ? results.get((Integer) key) : null;
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, Sequence>> entrySet() {
+      return new AbstractSet<Map.Entry<Integer, Sequence>>() {
+        @Override
+        public int size() {
+          return results.size();
+        }
+
+        @Override
+        public Iterator<Map.Entry<Integer, Sequence>> iterator() {
+          return new Iterator<Map.Entry<Integer, Sequence>>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+              return index < results.size();
+            }
+
+            @Override
+            public Map.Entry<Integer, Sequence> next() {
+              if (!hasNext()) {
+                throw new NoSuchElementException();
+              }
+              Map.Entry<Integer, Sequence> entry = new SimpleImmutableEntry<>(
+                  results.keyAt(index), results.sequenceAt(index));
+              ++index;
+              return entry;
+            }
+          };
+        }
+      };
+    }
+  }
+}
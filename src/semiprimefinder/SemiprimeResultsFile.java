@@ -0,0 +1,232 @@
+package semiprimefinder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Binary file format for `SemiprimeResults`, which can be read without
+ * parsing with `MappedSemiprimeResults`. All numbers are little-endian.
+ *
+ * <pre>
+ * header   magic (int), version (int), entry count (int),
+ *          max factor count (int), total factor count (long),
+ *          positions of the keys, offsets, factors and signs sections (long)
+ * keys     int per entry, sorted in ascending order
+ * offsets  int per entry + 1: index into the factors section (the index)
+ * factors  the factors of all entries one after another (int)
+ * signs    byte per entry, 1 or -1
+ * </pre>
+ */
+public final class SemiprimeResultsFile {
+
+  static final int MAGIC = 0x31525053; // "SPR1" in little-endian
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 56;
+
+  private SemiprimeResultsFile() {
+  }
+
+  /**
+   * Writes the given results to a file, which is replaced if it exists.
+   * @param results The results to write
+   * @param filename The file to write to
+   * @throws IOException If the file cannot be written
+   */
+  public static void write(SemiprimeResults results, String filename)
+      throws IOException {
+    write(results, filename, false);
+  }
+
+  /**
+   * Writes the given results to a file, which is replaced if it exists.
+   * @param results The results to write
+   * @param filename The file to write to
+   * @param force Whether to force the file to the storage device before
+   *        returning, so it survives a crash of the system
+   * @throws IOException If the file cannot be written
+   */
+  static void write(SemiprimeResults results, String filename, boolean force)
+      throws IOException {
+    int count = results.size();
+    long factorTotal = 0;
+    for (int i = 0; i < count; ++i) {
+      factorTotal += results.factorCount(i);
+    }
+    long keysPosition = HEADER_SIZE;
+    long offsetsPosition = keysPosition + 4L * count;
+    long factorsPosition = offsetsPosition + 4L * (count + 1);
+    long signsPosition = factorsPosition + 4L * factorTotal;
+
+    try (FileChannel channel = FileChannel.open(Paths.get(filename),
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20)
+          .order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putInt(MAGIC).putInt(VERSION).putInt(count)
+          .putInt(results.maxFactorCount()).putLong(factorTotal)
+          .putLong(keysPosition).putLong(offsetsPosition)
+          .putLong(factorsPosition).putLong(signsPosition);
+
+      for (int i = 0; i < count; ++i) {
+        ensureRemaining(channel, buffer, 4);
+        buffer.putInt(results.keyAt(i));
+      }
+      int offset = 0;
+      for (int i = 0; i < count; ++i) {
+        ensureRemaining(channel, buffer, 4);
+        buffer.putInt(offset);
+        offset += results.factorCount(i);
+      }
+      ensureRemaining(channel, buffer, 4);
+      buffer.putInt(offset);
+      for (int i = 0; i < count; ++i) {
+        for (int j = 0; j < results.factorCount(i); ++j) {
+          ensureRemaining(channel, buffer, 4);
+          buffer.putInt(results.factorAt(i, j));
+        }
+      }
+      for (int i = 0; i < count; ++i) {
+        ensureRemaining(channel, buffer, 1);
+        buffer.put((byte) results.signAt(i));
+      }
+      writeFully(channel, buffer);
+      if (force) {
+        channel.force(true);
+      }
+    }
+  }
+
+  /**
+   * Merges several files into one, which is replaced if it exists. Every
+   * semiprime may only occur in one of them. The files are merged by key with
+   * a priority queue, once for each section, so neither of them needs to fit
+   * into the heap.
+   * @param shards The files to merge
+   * @param filename The file to write to
+   * @throws IOException If the file cannot be written
+   */
+  public static void merge(List<MappedSemiprimeResults> shards,
+      String filename) throws IOException {
+    long total = 0;
+    long factorTotal = 0;
+    int maxFactorCount = 0;
+    for (MappedSemiprimeResults shard : shards) {
+      total += shard.size();
+      factorTotal += shard.totalFactorCount();
+      maxFactorCount = Math.max(maxFactorCount, shard.maxFactorCount());
+    }
+    if (total > Integer.MAX_VALUE) {
+      throw new IOException("Too many semiprimes: " + total);
+    }
+    if (factorTotal > Integer.MAX_VALUE) {
+      // The offsets are ints
+      throw new IOException("Too many factors: " + factorTotal);
+    }
+    int count = (int) total;
+    long keysPosition = HEADER_SIZE;
+    long offsetsPosition = keysPosition + 4L * count;
+    long factorsPosition = offsetsPosition + 4L * (count + 1);
+    long signsPosition = factorsPosition + 4L * factorTotal;
+
+    try (FileChannel channel = FileChannel.open(Paths.get(filename),
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20)
+          .order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putInt(MAGIC).putInt(VERSION).putInt(count)
+          .putInt(maxFactorCount).putLong(factorTotal)
+          .putLong(keysPosition).putLong(offsetsPosition)
+          .putLong(factorsPosition).putLong(signsPosition);
+
+      for (MergeCursor cursor = new MergeCursor(shards); cursor.next();) {
+        ensureRemaining(channel, buffer, 4);
+        buffer.putInt(cursor.shard.keyAt(cursor.index));
+      }
+      long offset = 0;
+      for (MergeCursor cursor = new MergeCursor(shards); cursor.next();) {
+        ensureRemaining(channel, buffer, 4);
+        buffer.putInt((int) offset);
+        offset += cursor.shard.factorCount(cursor.index);
+      }
+      ensureRemaining(channel, buffer, 4);
+      buffer.putInt((int) offset);
+      for (MergeCursor cursor = new MergeCursor(shards); cursor.next();) {
+        for (int j = 0; j < cursor.shard.factorCount(cursor.index); ++j) {
+          ensureRemaining(channel, buffer, 4);
+          buffer.putInt(cursor.shard.factorAt(cursor.index, j));
+        }
+      }
+      for (MergeCursor cursor = new MergeCursor(shards); cursor.next();) {
+        ensureRemaining(channel, buffer, 1);
+        buffer.put((byte) cursor.shard.signAt(cursor.index));
+      }
+      writeFully(channel, buffer);
+    }
+  }
+
+  private static void ensureRemaining(FileChannel channel, ByteBuffer buffer,
+      int length) throws IOException {
+    if (buffer.remaining() < length) {
+      writeFully(channel, buffer);
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer)
+      throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Walks over the entries of several files in ascending order of the keys.
+   * After each successful call to `next`, `shard` and `index` point to the
+   * current entry.
+   */
+  private static final class MergeCursor {
+
+    private final PriorityQueue<int[]> queue;
+    private final List<MappedSemiprimeResults> shards;
+    private int[] current;
+
+    MappedSemiprimeResults shard;
+    int index;
+
+    MergeCursor(List<MappedSemiprimeResults> shards) {
+      this.shards = shards;
+      // Elements are {key, shard, index}
+      queue = new PriorityQueue<int[]>(Math.max(shards.size(), 1),
+          (a, b) -> Integer.compare(a[0], b[0]));
+      for (int i = 0; i < shards.size(); ++i) {
+        if (shards.get(i).size() > 0) {
+          queue.add(new int[] { shards.get(i).keyAt(0), i, 0 });
+        }
+      }
+    }
+
+    boolean next() {
+      if (current != null) {
+        // Advance the shard of the previous entry
+        if (++current[2] < shard.size()) {
+          current[0] = shard.keyAt(current[2]);
+          queue.add(current);
+        }
+      }
+      current = queue.poll();
+      if (current == null) {
+        return false;
+      }
+      shard = shards.get(current[1]);
+      index = current[2];
+      return true;
+    }
+  }
+}
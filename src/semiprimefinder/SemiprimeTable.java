@@ -0,0 +1,33 @@
+package semiprimefinder;
+
+/**
+ * Index-based read access to semiprimes sorted in ascending order, shared by
+ * the results in the heap (`SemiprimeResults`) and in a mapped file
+ * (`MappedSemiprimeResults`).
+ */
+public interface SemiprimeTable {
+
+  int size();
+
+  /**
+   * Returns the index of the given semiprime.
+   * @param prime The semiprime to look up
+   * @return The index of the entry, or a negative number if there is none
+   */
+  int indexOf(int prime);
+
+  int keyAt(int index);
+
+  int signAt(int index);
+
+  int factorCount(int index);
+
+  int factorAt(int index, int factorIndex);
+
+  /**
+   * Returns the highest number of factors of any entry.
+   * @return The maximum factor count, 0 if there are no entries
+   */
+  int maxFactorCount();
+
+}
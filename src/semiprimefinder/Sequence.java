@@ -23,6 +23,11 @@ public class Sequence {
 		return this.sign == otherSequence.sign
 				&& this.factors.equals(otherSequence.factors);
 	}
+
+	@Override
+	public int hashCode() {
+		return 31 * sign + factors.hashCode();
+	}
 	
 	public int getSign() {
 		return sign;
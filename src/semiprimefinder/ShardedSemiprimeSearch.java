@@ -0,0 +1,183 @@
+package semiprimefinder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+/**
+ * Splits the search for the semiprimes up to a size across several worker
+ * processes on the same machine, so that neither the sieve nor the results
+ * need to fit into one heap. Each worker owns a slice of the prime range and
+ * writes the semiprimes in it to a shard file (see `SemiprimeResultsFile`);
+ * the shards are then merged into one file and exported as CSV.
+ *
+ * A worker classifies the primes of its slice with
+ * `WindowedSemiprimeClassifier`, so its memory only depends on the results of
+ * its slice. The coordinator reads the shards and the merged file through
+ * memory mappings and sieves the primes for the CSV file window by window.
+ */
+public class ShardedSemiprimeSearch {
+
+  /** The file the shards are merged into, in the output directory */
+  public static final String RESULTS_FILE = "semiprimes.bin";
+
+  /** The highest number that is being investigated */
+  private final int size;
+
+  /** The number of worker processes */
+  private final int workers;
+
+  /** The directory for the shards and the merged files */
+  private final Path directory;
+
+  /**
+   * Creates a search that is split across `workers` processes.
+   * @param size The highest number to check
+   * @param workers The number of worker processes
+   * @param directory The directory to write the shards and results to
+   * @throws IOException If the directory cannot be created
+   */
+  public ShardedSemiprimeSearch(int size, int workers, String directory)
+      throws IOException {
+    if (workers < 1) {
+      throw new IllegalArgumentException("Invalid number of workers "
+          + workers);
+    }
+    this.size = size;
+    this.workers = workers;
+    this.directory = Files.createDirectories(Paths.get(directory));
+  }
+
+  /**
+   * Runs a search with arguments `size workers directory` (by default 10^8,
+   * one worker per processor and "shards"), or a single worker with the
+   * arguments `--worker size from to shardFile`.
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length == 5 && args[0].equals("--worker")) {
+      int size = Integer.parseInt(args[1]);
+      SemiprimeResults results = searchSlice(size, Integer.parseInt(args[2]),
+          Integer.parseInt(args[3]));
+      SemiprimeResultsFile.write(results, args[4]);
+      return;
+    }
+
+    int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000_000;
+    int workers = args.length > 1 ? Integer.parseInt(args[1])
+        : Runtime.getRuntime().availableProcessors();
+    String directory = args.length > 2 ? args[2] : "shards";
+    ShardedSemiprimeSearch search = new ShardedSemiprimeSearch(size, workers,
+        directory);
+    long start = System.nanoTime();
+    search.runWorkers();
+    long searchTime = System.nanoTime() - start;
+    search.merge();
+    System.out.println("Searched up to " + size + " with " + workers
+        + " workers in " + searchTime / 1_000_000 + " ms, merged in "
+        + (System.nanoTime() - start - searchTime) / 1_000_000 + " ms");
+  }
+
+  /**
+   * Returns the file of the given shard.
+   * @param shard The index of the shard
+   * @return The path of the shard file
+   */
+  public Path getShardFile(int shard) {
+    return directory.resolve("shard-" + shard + ".bin");
+  }
+
+  /**
+   * Starts one process per worker with the same Java runtime and class path,
+   * each searching an equal part of the range, and waits for all of them.
+   * @throws IOException If a process cannot be started or fails
+   * @throws InterruptedException If interrupted while waiting; the workers
+   *         are stopped in that case
+   */
+  public void runWorkers() throws IOException, InterruptedException {
+    String java = Paths.get(System.getProperty("java.home"), "bin", "java")
+        .toString();
+    List<Process> processes = new ArrayList<Process>();
+    try {
+      for (int shard = 0; shard < workers; ++shard) {
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp",
+            System.getProperty("java.class.path"),
+            ShardedSemiprimeSearch.class.getName(), "--worker",
+            Integer.toString(size), Integer.toString(sliceStart(shard)),
+            Integer.toString(sliceStart(shard + 1) - 1),
+            getShardFile(shard).toString());
+        processes.add(builder.inheritIO().start());
+      }
+      for (int shard = 0; shard < workers; ++shard) {
+        int exitCode = processes.get(shard).waitFor();
+        if (exitCode != 0) {
+          throw new IOException("Worker " + shard + " failed with exit code "
+              + exitCode);
+        }
+      }
+    } finally {
+      for (Process process : processes) {
+        process.destroy();
+      }
+    }
+  }
+
+  /**
+   * Merges the shards into `RESULTS_FILE` and writes the CSV file
+   * `size`_eval.csv of `SemiprimeEvaluator` from it, both in the output
+   * directory. The results are read from the mapped file and the primes are
+   * sieved window by window, so only one flag per semiprime is held in the
+   * heap.
+   * @throws IOException If a shard cannot be read or a file not written
+   */
+  public void merge() throws IOException {
+    List<MappedSemiprimeResults> shards =
+        new ArrayList<MappedSemiprimeResults>();
+    for (int shard = 0; shard < workers; ++shard) {
+      shards.add(MappedSemiprimeResults.open(getShardFile(shard).toString()));
+    }
+    String resultsFile = directory.resolve(RESULTS_FILE).toString();
+    SemiprimeResultsFile.merge(shards, resultsFile);
+
+    PrimitiveIterator.OfLong sieve =
+        new SegmentedPrimeSieve(0, Math.max(size, 0)).iterator();
+    PrimitiveIterator.OfInt primes = new PrimitiveIterator.OfInt() {
+      @Override
+      public boolean hasNext() {
+        return sieve.hasNext();
+      }
+
+      @Override
+      public int nextInt() {
+        return (int) sieve.nextLong();
+      }
+    };
+    SemiprimeEvaluator.exportCsvFile(
+        directory.resolve(size + "_eval.csv").toString(), primes,
+        MappedSemiprimeResults.open(resultsFile));
+  }
+
+  /**
+   * Returns the first number of the slice of the given worker; the slices
+   * have the same length and together cover [2, size].
+   */
+  private int sliceStart(int shard) {
+    return (int) (2 + (size - 1L) * shard / workers);
+  }
+
+  /**
+   * Finds the semiprimes in [from, to] of a search up to `size`, i.e. the
+   * same entries as `SemiprimeFinder` finds in that range.
+   * @param size The size of the whole search
+   * @param from The smallest prime to examine
+   * @param to The biggest prime to examine, at most `size`
+   * @return The semiprimes in the range
+   */
+  public static SemiprimeResults searchSlice(int size, int from, int to) {
+    return new WindowedSemiprimeClassifier(size).classifyRange(from, to, null)
+        .build();
+  }
+}
@@ -0,0 +1,234 @@
+package semiprimefinder;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Classifies the prime numbers up to a size like `InverseSemiprimeFinder`,
+ * i.e. finds the semiprimes of `SemiprimeFinder` by factoring the neighbors of
+ * each prime, but window by window and with memory that does not grow with
+ * the size: the primes of a window come from a `SegmentedPrimeSieve`, and the
+ * neighbors are factored by dividing them by the prime numbers up to
+ * sqrt(size).
+ *
+ * The neighbors of an odd prime are even, and those divisible by 4 are not
+ * squarefree, so only the neighbors n = 2 mod 4 are factored. For an odd
+ * prime q, these are the numbers n = 2q mod 4q.
+ */
+final class WindowedSemiprimeClassifier {
+
+  /** Number of odd numbers per window of the prime sieve */
+  private static final int WINDOW_SIZE = 1 << 16;
+
+  /** Number of prime numbers a task handles without splitting */
+  private static final int LEAF_RANGE_THRESHOLD = 1 << 20;
+
+  /** The highest number that is being investigated */
+  private final int size;
+
+  /** Smallest factors must be below this bound, like in `SemiprimeFinder` */
+  private final int upperBound;
+
+  /** The primes up to `size`, sieved window by window */
+  private final SegmentedPrimeSieve sieve;
+
+  /** The odd primes up to sqrt(size / 2), which factor the odd halves */
+  private final int[] basePrimes;
+
+  /**
+   * Creates a classifier for the prime numbers up to `size`.
+   * @param size The highest number to check
+   */
+  WindowedSemiprimeClassifier(int size) {
+    this.size = size;
+    this.upperBound = (int) Math.sqrt(size);
+    this.sieve = new SegmentedPrimeSieve(0, Math.max(size, 2), WINDOW_SIZE);
+    int[] primes = new PrimeSieve((int) Math.sqrt(size / 2) + 1, true)
+        .toIntArray();
+    this.basePrimes = Arrays.copyOfRange(primes,
+        Math.min(1, primes.length), primes.length);
+  }
+
+  /**
+   * Classifies the prime numbers in [from, to], which may be any part of the
+   * range up to `size`.
+   * @param from The lowest number to examine
+   * @param to The highest number to examine
+   * @param pool The pool to run the tasks in, or null to classify the primes
+   *        in the current thread
+   * @return Builder with the semiprimes in [from, to]
+   */
+  SemiprimeResults.Builder classifyRange(int from, int to, ForkJoinPool pool) {
+    SemiprimeResults.Builder results = new SemiprimeResults.Builder();
+    ClassifyTask task = new ClassifyTask(Math.max(from, 2), Math.min(to, size),
+        results);
+    if (pool != null) {
+      pool.invoke(task);
+    } else {
+      task.compute();
+    }
+    return results;
+  }
+
+  /**
+   * Classifies the prime numbers in [from, to] window by window in the
+   * current thread.
+   */
+  private void classify(int from, int to, SemiprimeResults.Builder results) {
+    if (from > to) {
+      return;
+    }
+    if (from == 2) {
+      // The only prime with an odd neighbor: 2 = 3 - 1
+      if (size >= 3 && 3 < upperBound) {
+        results.add(2, -1, new int[] { 3 }, 1);
+      }
+    }
+    NeighborFactors neighbors = new NeighborFactors(WINDOW_SIZE / 2 + 2);
+    int[] factors = new int[SemiprimeFinder.MAX_FACTORS];
+    sieve.forEachWindow(Math.max(from, 3), to, window -> {
+      neighbors.factor(window.getLow() - 1,
+          (int) Math.min(size, window.getHigh() + 1), basePrimes);
+      window.forEachPrime(p -> {
+        int prime = (int) p;
+        int factorCount = neighbors.factorSquarefree(prime - 1, factors);
+        if (factorCount > 0 && factors[0] < upperBound) {
+          results.add(prime, 1, factors, factorCount);
+          return;
+        }
+        factorCount = neighbors.factorSquarefree(prime + 1, factors);
+        if (factorCount > 0 && factors[0] < upperBound) {
+          results.add(prime, -1, factors, factorCount);
+        }
+      });
+    });
+  }
+
+  /**
+   * The prime factors of the numbers n = 2 mod 4 in [low, high], i.e. of the
+   * even numbers that may be squarefree. The odd half n / 2 of each number is
+   * divided by the base primes; what remains is 1 or a prime factor bigger
+   * than all base primes.
+   */
+  private static final class NeighborFactors {
+
+    /** The first number n = 2 mod 4 of the window, at index 0 */
+    private long first;
+    private long high;
+
+    /** The part of each odd half that is not divided by a base prime */
+    private final int[] rest;
+
+    /** The number of base primes dividing each number */
+    private final byte[] counts;
+
+    /** Up to `MAX_FACTORS` base primes per number */
+    private final int[] factors;
+
+    /** Whether the square of a base prime divides the number */
+    private final boolean[] hasSquare;
+
+    NeighborFactors(int capacity) {
+      rest = new int[capacity];
+      counts = new byte[capacity];
+      factors = new int[capacity * SemiprimeFinder.MAX_FACTORS];
+      hasSquare = new boolean[capacity];
+    }
+
+    /**
+     * Factors the numbers n = 2 mod 4 in [low, high] with the given odd
+     * primes, which must include all odd primes up to sqrt(high / 2).
+     */
+    void factor(long low, long high, int[] basePrimes) {
+      this.first = low + Math.floorMod(2 - low, 4);
+      this.high = high;
+      int length = first > high ? 0 : (int) ((high - first) >> 2) + 1;
+      for (int i = 0; i < length; ++i) {
+        rest[i] = (int) ((first >> 1) + 2 * i);
+        counts[i] = 0;
+        hasSquare[i] = false;
+      }
+      int maxFactors = SemiprimeFinder.MAX_FACTORS;
+      for (int prime : basePrimes) {
+        if ((long) prime * prime > high >> 1) {
+          break;
+        }
+        long step = 4L * prime;
+        // The first n = 2 * prime mod 4 * prime that is not smaller than first
+        long multiple = first + Math.floorMod(2L * prime - first, step);
+        for (long n = multiple; n <= high; n += step) {
+          int i = (int) ((n - first) >> 2);
+          rest[i] /= prime;
+          if (rest[i] % prime == 0) {
+            hasSquare[i] = true;
+          } else {
+            factors[i * maxFactors + counts[i]++] = prime;
+          }
+        }
+      }
+    }
+
+    /**
+     * Writes the factors of `n` to `target` if it is squarefree.
+     * @return The number of factors, or -1 if `n` is not squarefree, not even
+     *         or outside of the window
+     */
+    int factorSquarefree(long n, int[] target) {
+      if ((n & 3) != 2 || n < first || n > high) {
+        return -1;
+      }
+      int i = (int) ((n - first) >> 2);
+      if (hasSquare[i]) {
+        return -1;
+      }
+      target[0] = 2;
+      int count = counts[i];
+      System.arraycopy(factors, i * SemiprimeFinder.MAX_FACTORS, target, 1,
+          count);
+      ++count;
+      if (rest[i] > 1) {
+        target[count++] = rest[i];
+      }
+      return count;
+    }
+  }
+
+  /**
+   * Fork-join task classifying the prime numbers in [from, to].
+   */
+  private class ClassifyTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+
+    /** The builder to merge the semiprimes into */
+    private final SemiprimeResults.Builder target;
+
+    ClassifyTask(int from, int to, SemiprimeResults.Builder target) {
+      this.from = from;
+      this.to = to;
+      this.target = target;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > LEAF_RANGE_THRESHOLD && getPool() != null) {
+        int middle = (int) (((long) from + to) >>> 1);
+        invokeAll(new ClassifyTask(from, middle, target),
+            new ClassifyTask(middle + 1, to, target));
+        return;
+      }
+
+      // Every prime is classified once, so the order in which the tasks add
+      // their semiprimes does not matter
+      SemiprimeResults.Builder results = new SemiprimeResults.Builder();
+      classify(from, to, results);
+      synchronized (target) {
+        target.addAll(results);
+      }
+    }
+  }
+}
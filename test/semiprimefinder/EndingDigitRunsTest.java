@@ -0,0 +1,56 @@
+package semiprimefinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the histogram of `PrimeNumberEvaluator.countConsecutiveEndingDigits`
+ * against the runs that `findConsecutiveEndingDigits` collects.
+ */
+class EndingDigitRunsTest {
+
+  /** The minimum length of `findConsecutiveEndingDigits` */
+  private static final int MIN_LENGTH = 3;
+
+  @Test
+  void countsSameRunsAsFullSearch() {
+    for (int size : new int[] { 2, 100, 10_000, 1_000_003 }) {
+      PrimeSieve sieve = new PrimeSieve(size, true);
+      Map<Integer, List<List<Integer>>> expected = PrimeNumberEvaluator
+          .findConsecutiveEndingDigits(sieve.iterator(2, size));
+      for (int parallelism : new int[] { 1, 3, 8 }) {
+        EndingDigitRuns runs = PrimeNumberEvaluator
+            .countConsecutiveEndingDigits(sieve, MIN_LENGTH, 5, parallelism);
+        String message = "size " + size + ", parallelism " + parallelism;
+        int maxLength = expected.isEmpty() ? 0 : Collections.max(
+            expected.keySet());
+        assertEquals(maxLength, runs.getMaxLength(), message);
+        for (int length = 0; length <= maxLength + 1; ++length) {
+          List<List<Integer>> expectedRuns = expected.getOrDefault(length,
+              Collections.<List<Integer>>emptyList());
+          assertEquals(expectedRuns.size(), runs.getCount(length), message);
+          assertEquals(expectedRuns.subList(0, Math.min(5,
+              expectedRuns.size())), toLists(runs.getSamples(length)),
+              message);
+        }
+      }
+    }
+  }
+
+  private static List<List<Integer>> toLists(List<int[]> runs) {
+    List<List<Integer>> lists = new ArrayList<List<Integer>>();
+    for (int[] run : runs) {
+      List<Integer> list = new ArrayList<Integer>();
+      for (int prime : run) {
+        list.add(prime);
+      }
+      lists.add(list);
+    }
+    return lists;
+  }
+}
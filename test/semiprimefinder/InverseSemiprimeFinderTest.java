@@ -0,0 +1,38 @@
+package semiprimefinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that `InverseSemiprimeFinder` finds the same semiprimes as
+ * `SemiprimeFinder`.
+ */
+class InverseSemiprimeFinderTest {
+
+  private static final int[] SIZES = { 0, 1, 2, 3, 4, 10, 16, 17, 50, 100,
+      101, 1000, 1024, 12_345, 65_536, 100_000, 300_007 };
+
+  @Test
+  void findsSameSemiprimes() {
+    for (int size : SIZES) {
+      Map<Integer, Sequence> expected =
+          new SemiprimeFinder(size).getSemiprimes();
+      assertEquals(expected, new InverseSemiprimeFinder(size).getSemiprimes(),
+          "size " + size);
+      assertEquals(expected,
+          new InverseSemiprimeFinder(size, 3).getSemiprimes(), "size " + size);
+    }
+  }
+
+  @Test
+  void usesGivenSieve() {
+    PrimeSieve sieve = new PrimeSieve(1000, true).extendTo(200_000);
+    InverseSemiprimeFinder finder = new InverseSemiprimeFinder(sieve, 2);
+    assertSame(sieve, finder.getPrimeSieve());
+    assertEquals(new SemiprimeFinder(200_000).getSemiprimes(),
+        finder.getSemiprimes());
+  }
+}
@@ -0,0 +1,40 @@
+package semiprimefinder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks `LongSemiprimeFinder` against `SemiprimeFinder` in the int range.
+ */
+class LongSemiprimeFinderTest {
+
+  @Test
+  void findsSameSemiprimesAsSemiprimeFinder() {
+    for (int size : new int[] { 0, 1, 2, 3, 4, 10, 16, 17, 100, 1000, 12_345,
+        100_000, 300_007 }) {
+      Map<Integer, Sequence> expected =
+          new SemiprimeFinder(size).getSemiprimes();
+      SortedMap<Long, LongSequence> semiprimes =
+          new LongSemiprimeFinder(size).getSemiprimes();
+      assertEquals(expected.size(), semiprimes.size(), "size " + size);
+      for (Map.Entry<Integer, Sequence> entry : expected.entrySet()) {
+        LongSequence sequence = semiprimes.get((long) entry.getKey());
+        List<Integer> factors = entry.getValue().getFactors();
+        assertEquals(entry.getValue().getSign(), sequence.getSign());
+        assertArrayEquals(factors.stream().mapToLong(Integer::longValue)
+            .toArray(), sequence.getFactors(), "prime " + entry.getKey());
+      }
+    }
+  }
+
+  @Test
+  void countsSameSemiprimesAsSemiprimeFinder() {
+    assertEquals(497_090, new LongSemiprimeFinder(10_000_000)
+        .countSemiprimes());
+  }
+}
@@ -0,0 +1,90 @@
+package semiprimefinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares `MillerRabin` with `BigInteger.isProbablePrime`, especially for
+ * the numbers that fool the test with fewer bases than it uses.
+ */
+class MillerRabinTest {
+
+  /**
+   * Strong pseudoprimes to all prime bases up to 2, 3, 5, 7, 11, 13, 17 and
+   * 23, the first of which are below the thresholds of `BASES_32` and
+   * `BASES_41`, followed by Carmichael numbers.
+   */
+  private static final long[] PSEUDOPRIMES = { 2047, 1_373_653, 25_326_001,
+      3_215_031_751L, 2_152_302_898_747L, 3_474_749_660_383L,
+      341_550_071_728_321L, 3_825_123_056_546_413_051L, 561, 1105, 1729,
+      41041, 825_265, 321_197_185, 5_394_826_801L, 232_250_619_601L,
+      9_746_347_772_161L };
+
+  @Test
+  void agreesForSmallNumbers() {
+    for (long n = -10; n <= 200_000; ++n) {
+      assertAgrees(n);
+    }
+  }
+
+  @Test
+  void rejectsStrongPseudoprimes() {
+    for (long n : PSEUDOPRIMES) {
+      assertAgrees(n);
+      for (long d = -100; d <= 100; ++d) {
+        assertAgrees(n + d);
+      }
+    }
+  }
+
+  @Test
+  void agreesAroundBaseThresholds() {
+    for (long threshold : new long[] { 3_215_031_751L, 3_474_749_660_383L }) {
+      for (long n = threshold - 1000; n <= threshold + 1000; ++n) {
+        assertAgrees(n);
+      }
+    }
+  }
+
+  @Test
+  void agreesNearLongMaxValue() {
+    // The biggest long is 2^63 - 1, so these are the numbers closest to 2^64
+    for (long n = Long.MAX_VALUE - 20_000; n > 0; ++n) {
+      assertAgrees(n);
+    }
+  }
+
+  @Test
+  void rejectsSquaresAndProductsOfBigPrimes() {
+    long p = BigInteger.valueOf(3_037_000_499L).nextProbablePrime()
+        .longValue();
+    long q = BigInteger.valueOf(3_000_000_000L).nextProbablePrime()
+        .longValue();
+    assertTrue(MillerRabin.isPrime(p));
+    assertAgrees(p * q);
+    assertAgrees(q * q);
+    assertAgrees(2_147_483_647L * 2_147_483_647L);
+  }
+
+  @Test
+  void agreesForRandomNumbers() {
+    Random random = new Random(42);
+    for (int i = 0; i < 20_000; ++i) {
+      long n = random.nextLong() >>> 1 + random.nextInt(63);
+      assertAgrees(n);
+      BigInteger prime = BigInteger.valueOf(n).nextProbablePrime();
+      if (prime.bitLength() < 64) {
+        assertAgrees(prime.longValue());
+      }
+    }
+  }
+
+  private static void assertAgrees(long n) {
+    boolean expected = n > 1 && BigInteger.valueOf(n).isProbablePrime(64);
+    assertEquals(expected, MillerRabin.isPrime(n), "isPrime(" + n + ")");
+  }
+}
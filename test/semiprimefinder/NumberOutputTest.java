@@ -0,0 +1,88 @@
+package semiprimefinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks the text that `NumberOutput` writes against `Long.toString` and the
+ * CSV export against `SemiprimeEvaluator.prepareCsvFile`.
+ */
+class NumberOutputTest {
+
+  private static final String NEW_LINE = System.lineSeparator();
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void writesNumbersLikeLongToString() throws IOException {
+    long[] values = { 0, 1, -1, 9, 10, -10, 99, 100, 12_345,
+        Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE,
+        Long.MIN_VALUE + 1, 1_000_000_000_000_000_000L };
+    for (int bufferSize : new int[] { 64, NumberOutput.DEFAULT_BUFFER_SIZE }) {
+      StringBuilder expected = new StringBuilder();
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (NumberOutput out = new NumberOutput(Channels.newChannel(bytes),
+          bufferSize)) {
+        // Enough numbers to fill the smaller buffer many times
+        for (int i = 0; i < 100; ++i) {
+          for (long value : values) {
+            out.write(value).write(' ').write((int) value).newLine();
+            expected.append(value).append(' ').append((int) value)
+                .append(NEW_LINE);
+          }
+        }
+      }
+      assertEquals(expected.toString(), toString(bytes),
+          "buffer size " + bufferSize);
+    }
+  }
+
+  @Test
+  void writesPaddedColumns() throws IOException {
+    StringBuilder expected = new StringBuilder();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (NumberOutput out = new NumberOutput(Channels.newChannel(bytes), 64)) {
+      for (long value : new long[] { 0, 7, -7, 42, 12_345, -12_345,
+          Long.MIN_VALUE }) {
+        for (int width = 0; width <= 25; ++width) {
+          out.writePadded(value, width).write('|');
+          expected.append(String.format("%" + Math.max(1, width) + "d|",
+              value));
+        }
+      }
+      out.repeat('x', 100).repeat('y', 0).repeat('z', -1).write("end");
+      expected.append("x".repeat(100)).append("end");
+    }
+    assertEquals(expected.toString(), toString(bytes));
+  }
+
+  @Test
+  void exportsSameCsvAsPreparedLines() throws IOException {
+    for (int size : new int[] { 2, 100, 100_000 }) {
+      SemiprimeFinder finder = new SemiprimeFinder(size);
+      SemiprimeResults semiprimes = finder.getResults();
+      List<String> lines = SemiprimeEvaluator.prepareCsvFile(
+          finder.getPrimeSieve().toIntArray(), semiprimes);
+      Path file = directory.resolve(size + "_eval.csv");
+      SemiprimeEvaluator.exportCsvFile(file.toString(),
+          finder.getPrimeSieve().iterator(2, size), semiprimes);
+      assertEquals(String.join(NEW_LINE, lines) + NEW_LINE,
+          new String(Files.readAllBytes(file), StandardCharsets.US_ASCII),
+          "size " + size);
+    }
+  }
+
+  static String toString(ByteArrayOutputStream bytes) {
+    return new String(bytes.toByteArray(), StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,97 @@
+package semiprimefinder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks saving, opening and caching sieves with `PrimeSieve`.
+ */
+class PrimeSieveCacheTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void opensSavedSieve() throws IOException {
+    String file = directory.resolve("sieve").toString();
+    new PrimeSieve(100_000).save(file);
+    for (int size : new int[] { 0, 2, 127, 128, 99_999, 100_000 }) {
+      assertArrayEquals(new PrimeSieve(size, true).toIntArray(),
+          PrimeSieve.open(file, size).toIntArray(), "size " + size);
+    }
+    assertThrows(IOException.class, () -> PrimeSieve.open(file, 100_001));
+    assertFalse(Files.exists(directory.resolve("sieve.tmp")));
+  }
+
+  @Test
+  void rejectsCorruptFiles() throws IOException {
+    Path file = directory.resolve("sieve");
+    new PrimeSieve(10_000, true).save(file.toString());
+    byte[] saved = Files.readAllBytes(file);
+
+    byte[] payload = saved.clone();
+    payload[payload.length - 1] ^= 1;
+    assertOpenFails(file, payload, 100);
+
+    // A consistent length for another number of words
+    ByteBuffer header = ByteBuffer.wrap(saved.clone())
+        .order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(8, 20_000);
+    assertOpenFails(file, header.array(), 20_000);
+
+    assertOpenFails(file, new byte[] { 1, 2, 3 }, 100);
+    assertOpenFails(file, new byte[saved.length], 100);
+  }
+
+  @Test
+  void createsAndReusesCache() throws IOException {
+    Path file = directory.resolve("cache");
+    int[] expected = new PrimeSieve(50_000, true).toIntArray();
+    assertArrayEquals(expected,
+        PrimeSieve.cached(50_000, file.toString(), 2).toIntArray());
+    byte[] saved = Files.readAllBytes(file);
+
+    assertArrayEquals(new PrimeSieve(1000, true).toIntArray(),
+        PrimeSieve.cached(1000, file.toString(), 1).toIntArray());
+    assertArrayEquals(saved, Files.readAllBytes(file));
+
+    assertArrayEquals(new PrimeSieve(60_000, true).toIntArray(),
+        PrimeSieve.cached(60_000, file.toString(), 1).toIntArray());
+    assertEquals(60_000, PrimeSieve.open(file.toString(), 60_000).getSize());
+  }
+
+  @Test
+  void keepsBiggerCacheAfterCorruptRead() throws IOException {
+    Path file = directory.resolve("cache");
+    new PrimeSieve(50_000, true).save(file.toString());
+    byte[] corrupt = Files.readAllBytes(file);
+    corrupt[corrupt.length - 1] ^= 1;
+    Files.write(file, corrupt);
+
+    assertArrayEquals(new PrimeSieve(1000, true).toIntArray(),
+        PrimeSieve.cached(1000, file.toString(), 1).toIntArray());
+    assertArrayEquals(corrupt, Files.readAllBytes(file));
+
+    // A corrupt cache that is not bigger is replaced
+    assertArrayEquals(new PrimeSieve(50_000, true).toIntArray(),
+        PrimeSieve.cached(50_000, file.toString(), 1).toIntArray());
+    assertEquals(50_000, PrimeSieve.open(file.toString(), 50_000).getSize());
+  }
+
+  private static void assertOpenFails(Path file, byte[] content, int size)
+      throws IOException {
+    Files.write(file, content);
+    assertThrows(IOException.class, () -> PrimeSieve.open(file.toString(),
+        size));
+  }
+}
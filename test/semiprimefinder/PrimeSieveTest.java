@@ -0,0 +1,146 @@
+package semiprimefinder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the modes of `PrimeSieve` against the original boolean sieve.
+ */
+class PrimeSieveTest {
+
+  private static final int[] SIZES = { 2, 3, 4, 10, 63, 64, 127, 128, 129,
+      1000, 65_536, 100_003, 1_000_000 };
+
+  @Test
+  void compactSieveFindsSamePrimes() {
+    for (int size : SIZES) {
+      PrimeSieve expected = new PrimeSieve(size);
+      PrimeSieve compact = new PrimeSieve(size, true);
+      String message = "size " + size;
+      assertEquals(expected.toList(), compact.toList(), message);
+      for (int n = 2; n <= size; ++n) {
+        assertEquals(expected.isPrime(n), compact.isPrime(n), message);
+        assertEquals(expected.nextPrime(n), compact.nextPrime(n), message);
+      }
+    }
+  }
+
+  @Test
+  void exportsPrimesWithoutBoxing() {
+    for (int size : SIZES) {
+      PrimeSieve sieve = new PrimeSieve(size, true);
+      int[] expected = toArray(new PrimeSieve(size).toList());
+      assertArrayEquals(expected, sieve.toIntArray());
+      assertArrayEquals(expected, sieve.primes().toArray());
+    }
+  }
+
+  @Test
+  void knowsPrimeCountUpTo1000000() {
+    assertEquals(78_498, new PrimeSieve(1_000_000, true).toIntArray().length);
+  }
+
+  @Test
+  void stopsAtSize() {
+    for (boolean compact : new boolean[] { false, true }) {
+      PrimeSieve sieve = new PrimeSieve(100, compact);
+      assertEquals(97, sieve.nextPrime(96));
+      assertEquals(0, sieve.nextPrime(97));
+      assertEquals(0, sieve.nextPrime(100));
+      assertEquals(0, sieve.nextPrime(Integer.MAX_VALUE - 1));
+      assertEquals(0, sieve.nextPrime(Integer.MAX_VALUE));
+    }
+  }
+
+  @Test
+  void parallelSieveFindsSamePrimes() {
+    for (int size : SIZES) {
+      int[] expected = new PrimeSieve(size, true).toIntArray();
+      for (int parallelism : new int[] { 2, 3, 8 }) {
+        assertArrayEquals(expected,
+            new PrimeSieve(size, true, parallelism).toIntArray(),
+            "size " + size + ", parallelism " + parallelism);
+        assertArrayEquals(expected,
+            new PrimeSieve(size, false, parallelism).toIntArray(),
+            "size " + size + ", parallelism " + parallelism);
+      }
+    }
+  }
+
+  @Test
+  void indexAnswersRankQueries() {
+    for (int size : SIZES) {
+      for (boolean compact : new boolean[] { false, true }) {
+        PrimeSieve sieve = new PrimeSieve(size, compact).buildIndex();
+        assertIndexMatches(sieve, size);
+      }
+    }
+  }
+
+  @Test
+  void requiresIndexForRankQueries() {
+    PrimeSieve sieve = new PrimeSieve(100, true);
+    assertFalse(sieve.hasIndex());
+    assertThrows(IllegalStateException.class, () -> sieve.primeAt(0));
+    assertSame(sieve, sieve.buildIndex());
+    assertTrue(sieve.hasIndex());
+  }
+
+  @Test
+  void extendedSieveEqualsNewSieve() {
+    int[][] steps = { { 10, 100 }, { 100, 127, 128, 129, 1000 },
+        { 1000, 65_536, 300_007 }, { 2, 1_000_000 } };
+    for (int[] sizes : steps) {
+      for (boolean compact : new boolean[] { false, true }) {
+        PrimeSieve sieve = new PrimeSieve(sizes[0], compact);
+        PrimeSieve indexed = new PrimeSieve(sizes[0], compact).buildIndex();
+        for (int size : sizes) {
+          sieve.extendTo(size);
+          indexed.extendTo(size);
+          assertEquals(size, sieve.getSize());
+          assertArrayEquals(new PrimeSieve(size, true).toIntArray(),
+              sieve.toIntArray(), "size " + size);
+          assertIndexMatches(indexed, size);
+        }
+        // Smaller sizes are ignored
+        sieve.extendTo(5);
+        assertEquals(sizes[sizes.length - 1], sieve.getSize());
+      }
+    }
+  }
+
+  /**
+   * Checks `pi`, `primeAt`, `primeCount` and `nextPrime` of an indexed sieve
+   * against a sieve without index.
+   */
+  private static void assertIndexMatches(PrimeSieve sieve, int size) {
+    int[] primes = new PrimeSieve(size, true).toIntArray();
+    String message = "size " + size;
+    assertEquals(primes.length, sieve.primeCount(), message);
+    for (int k = 0; k < primes.length; ++k) {
+      assertEquals(primes[k], sieve.primeAt(k), message);
+    }
+    int rank = 0;
+    for (int n = 0; n <= size; ++n) {
+      while (rank < primes.length && primes[rank] <= n) {
+        ++rank;
+      }
+      assertEquals(rank, sieve.pi(n), message + ", n = " + n);
+      if (n >= 2) {
+        assertEquals(rank < primes.length ? primes[rank] : 0,
+            sieve.nextPrime(n), message + ", n = " + n);
+      }
+    }
+  }
+
+  static int[] toArray(List<Integer> list) {
+    return list.stream().mapToInt(Integer::intValue).toArray();
+  }
+}
@@ -0,0 +1,104 @@
+package semiprimefinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that `PrintHelper` writes the same text as the original
+ * `System.out.print` calls.
+ */
+class PrintHelperTest {
+
+  private static final String NEW_LINE = System.lineSeparator();
+
+  @Test
+  void printsSemiprimesInOriginalFormat() throws IOException {
+    SemiprimeResults semiprimes = new SemiprimeFinder(100).getResults();
+    String printed = print(semiprimes);
+    assertEquals("2\t-1\t3 " + NEW_LINE + "3\t+1\t2 " + NEW_LINE
+        + "5\t-1\t2 3 " + NEW_LINE, printed.substring(0,
+        printed.indexOf("7\t")));
+    assertEquals(original(semiprimes.asMap()), printed);
+
+    semiprimes = new SemiprimeFinder(100_000).getResults();
+    assertEquals(original(semiprimes.asMap()), print(semiprimes));
+  }
+
+  @Test
+  void printsPublishedSemiprimesLikeResults() throws IOException {
+    int size = 300_007;
+    String expected = print(new SemiprimeFinder(size).getResults());
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (NumberOutput out = new NumberOutput(Channels.newChannel(bytes), 64)) {
+      PrintHelper.printSemiprimes(new SemiprimePublisher(size, 1 << 12, 3),
+          out);
+    }
+    assertEquals(expected, NumberOutputTest.toString(bytes));
+  }
+
+  @Test
+  void printsPrimesInOriginalColumns() throws IOException {
+    for (int size : new int[] { 10, 100, 1000, 12_345 }) {
+      boolean[] composite = new boolean[size];
+      for (int i = 2; i * i < size; ++i) {
+        for (int j = i * i; j < size; j += i) {
+          composite[j] = true;
+        }
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (NumberOutput out = NumberOutput.toStream(bytes)) {
+        PrintHelper.printPrimes(composite, 7, out);
+      }
+      assertEquals(originalPrimes(composite, 7),
+          NumberOutputTest.toString(bytes), "size " + size);
+    }
+  }
+
+  private static String print(SemiprimeResults semiprimes)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (NumberOutput out = new NumberOutput(Channels.newChannel(bytes), 64)) {
+      PrintHelper.printSemiprimes(semiprimes, out);
+    }
+    return NumberOutputTest.toString(bytes);
+  }
+
+  /** The output of the original `printSemiprimes(Map)` */
+  private static String original(Map<Integer, Sequence> semiprimes) {
+    StringBuilder builder = new StringBuilder();
+    for (Map.Entry<Integer, Sequence> entry : semiprimes.entrySet()) {
+      String sign = entry.getValue().getSign() == 1 ? "+1" : "-1";
+      builder.append(entry.getKey()).append("\t" + sign + "\t");
+      for (int factor : entry.getValue().getFactors()) {
+        builder.append(factor + " ");
+      }
+      builder.append(NEW_LINE);
+    }
+    return builder.toString();
+  }
+
+  /** The output of the original `printPrimes(boolean[], int)` */
+  private static String originalPrimes(boolean[] array, int entriesPerLine) {
+    StringBuilder builder = new StringBuilder();
+    int maxLength = (int) Math.log10(array.length);
+    builder.append(" ".repeat(Math.max(0, maxLength - 1))).append("2, ");
+    int displayedPrimes = 1;
+    for (int i = 3; i < array.length; i += 2) {
+      if (!array[i]) {
+        String number = Integer.toString(i);
+        builder.append(" ".repeat(Math.max(0, maxLength - number.length())))
+            .append(number + ", ");
+        if (++displayedPrimes == entriesPerLine) {
+          builder.append(NEW_LINE);
+          displayedPrimes = 0;
+        }
+      }
+    }
+    return builder.append(NEW_LINE).toString();
+  }
+}
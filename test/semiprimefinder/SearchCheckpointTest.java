@@ -0,0 +1,109 @@
+package semiprimefinder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Interrupts searches with a checkpoint and checks that the resumed search
+ * prints the same bytes as an uninterrupted one.
+ */
+class SearchCheckpointTest {
+
+  private static final int SIZE = 1_000_000;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void resumedSearchPrintsSameSemiprimes() throws IOException {
+    byte[] expected = print(new SemiprimeFinder(SIZE, 1).getResults());
+    for (int parallelism : new int[] { 1, 3 }) {
+      for (int completed : new int[] { 0, 1, 5, 40 }) {
+        Path checkpointDirectory = directory.resolve(
+            "p" + parallelism + "-" + completed);
+        crashAfter(checkpointDirectory, completed);
+        assertArrayEquals(expected, print(resume(checkpointDirectory,
+            parallelism)), "parallelism " + parallelism + ", crash after "
+                + completed);
+      }
+    }
+  }
+
+  @Test
+  void ignoresCorruptState() throws IOException {
+    byte[] expected = print(new SemiprimeFinder(SIZE, 1).getResults());
+    crashAfter(directory, 10);
+    Path state = directory.resolve("checkpoint.dat");
+    byte[] bytes = Files.readAllBytes(state);
+    bytes[bytes.length / 2] ^= 1;
+    Files.write(state, bytes);
+    assertArrayEquals(expected, print(resume(directory, 1)));
+  }
+
+  @Test
+  void ignoresSegmentWithoutState() throws IOException {
+    byte[] expected = print(new SemiprimeFinder(SIZE, 1).getResults());
+    crashAfter(directory, 10);
+    // A segment written just before the process was killed
+    Files.write(directory.resolve("results-10.bin"), new byte[] { 1, 2, 3 });
+    assertArrayEquals(expected, print(resume(directory, 3)));
+  }
+
+  @Test
+  void startsOverWithTruncatedSegment() throws IOException {
+    byte[] expected = print(new SemiprimeFinder(SIZE, 1).getResults());
+    crashAfter(directory, 10);
+    // The state refers to a segment that was lost, e.g. in a power failure
+    Path segment = directory.resolve("results-3.bin");
+    byte[] bytes = Files.readAllBytes(segment);
+    Files.write(segment, Arrays.copyOf(bytes, bytes.length / 2));
+    assertArrayEquals(expected, print(resume(directory, 1)));
+  }
+
+  /**
+   * Runs a search that is saved after every smallest factor and fails once
+   * `completed` smallest factors are done, like a killed process.
+   */
+  private static void crashAfter(Path checkpointDirectory, int completed)
+      throws IOException {
+    SearchCheckpoint checkpoint = new SearchCheckpoint(
+        checkpointDirectory.toString(), 0);
+    SearchListener listener = new SearchListener() {
+      private int count;
+
+      @Override
+      public void smallestFactorCompleted(FactorStatistics statistics) {
+        if (count++ == completed) {
+          throw new IllegalStateException("Killed");
+        }
+      }
+    };
+    assertThrows(IllegalStateException.class, () -> new SemiprimeFinder(
+        checkpoint.loadSieve(SIZE, 1), 1, listener, checkpoint));
+  }
+
+  private static SemiprimeResults resume(Path checkpointDirectory,
+      int parallelism) throws IOException {
+    SearchCheckpoint checkpoint = new SearchCheckpoint(
+        checkpointDirectory.toString(), 0);
+    return new SemiprimeFinder(checkpoint.loadSieve(SIZE, parallelism),
+        parallelism, null, checkpoint).getResults();
+  }
+
+  private static byte[] print(SemiprimeResults semiprimes)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (NumberOutput out = NumberOutput.toStream(bytes)) {
+      PrintHelper.printSemiprimes(semiprimes, out);
+    }
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,94 @@
+package semiprimefinder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks `SegmentedPrimeSieve` against `PrimeSieve` and, beyond the int
+ * range, against `BigInteger.isProbablePrime`.
+ */
+class SegmentedPrimeSieveTest {
+
+  @Test
+  void findsSamePrimesAsPrimeSieve() {
+    int size = 1_000_000;
+    int[] primes = new PrimeSieve(size, true).toIntArray();
+    for (int windowSize : new int[] { 64, 1000, 1 << 16 }) {
+      for (long[] range : new long[][] { { 0, size }, { 2, 2 }, { 3, 100 },
+          { 500_000, size }, { 999_983, 999_983 }, { 14, 16 } }) {
+        List<Long> expected = new ArrayList<Long>();
+        for (int prime : primes) {
+          if (prime >= range[0] && prime <= range[1]) {
+            expected.add((long) prime);
+          }
+        }
+        SegmentedPrimeSieve sieve = new SegmentedPrimeSieve(range[0],
+            range[1], windowSize);
+        String message = "[" + range[0] + ", " + range[1] + "], window size "
+            + windowSize;
+        assertEquals(expected, collect(sieve), message);
+        assertEquals(expected, iterate(sieve), message);
+        assertEquals(expected.size(), sieve.countPrimes(), message);
+      }
+    }
+  }
+
+  @Test
+  void findsPrimesBeyondIntRange() {
+    for (long low : new long[] { Integer.MAX_VALUE - 1000L,
+        1_000_000_000_000L, 10_000_000_000_000_000L }) {
+      long high = low + 100_000 - 1;
+      List<Long> expected = new ArrayList<Long>();
+      for (long n = low; n <= high; ++n) {
+        if (BigInteger.valueOf(n).isProbablePrime(64)) {
+          expected.add(n);
+        }
+      }
+      SegmentedPrimeSieve sieve = new SegmentedPrimeSieve(low, high, 4096);
+      assertEquals(expected, collect(sieve), "low " + low);
+      assertEquals(expected, iterate(sieve), "low " + low);
+    }
+  }
+
+  @Test
+  void sievesPartsOfRange() {
+    SegmentedPrimeSieve sieve = new SegmentedPrimeSieve(0, 100_000, 256);
+    List<Long> primes = new ArrayList<Long>();
+    sieve.forEachPrime(1000, 2000, primes::add);
+    long[] expected = new PrimeSieve(2000, true).primes()
+        .filter(p -> p >= 1000).asLongStream().toArray();
+    assertArrayEquals(expected,
+        primes.stream().mapToLong(Long::longValue).toArray());
+  }
+
+  @Test
+  void rejectsInvalidRanges() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new SegmentedPrimeSieve(10, 5));
+    assertThrows(IllegalArgumentException.class,
+        () -> new SegmentedPrimeSieve(0, 1L << 62));
+    assertThrows(IllegalArgumentException.class,
+        () -> new SegmentedPrimeSieve(0, 100, 10));
+  }
+
+  private static List<Long> collect(SegmentedPrimeSieve sieve) {
+    List<Long> primes = new ArrayList<Long>();
+    sieve.forEachPrime(primes::add);
+    return primes;
+  }
+
+  private static List<Long> iterate(SegmentedPrimeSieve sieve) {
+    List<Long> primes = new ArrayList<Long>();
+    for (PrimitiveIterator.OfLong it = sieve.iterator(); it.hasNext();) {
+      primes.add(it.nextLong());
+    }
+    return primes;
+  }
+}
@@ -0,0 +1,109 @@
+package semiprimefinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks `SemiprimeFinder` against semiprimes that the original, map-based
+ * implementation found.
+ */
+class SemiprimeFinderTest {
+
+  @Test
+  void findsKnownSemiprimesUpTo100() {
+    Map<Integer, Sequence> expected = new LinkedHashMap<Integer, Sequence>();
+    expected.put(2, sequence(-1, 3));
+    expected.put(3, sequence(1, 2));
+    expected.put(5, sequence(-1, 2, 3));
+    expected.put(7, sequence(1, 2, 3));
+    expected.put(11, sequence(1, 2, 5));
+    expected.put(13, sequence(-1, 2, 7));
+    expected.put(23, sequence(1, 2, 11));
+    expected.put(29, sequence(-1, 2, 3, 5));
+    expected.put(31, sequence(1, 2, 3, 5));
+    expected.put(37, sequence(-1, 2, 19));
+    expected.put(41, sequence(-1, 2, 3, 7));
+    expected.put(43, sequence(1, 2, 3, 7));
+    expected.put(47, sequence(1, 2, 23));
+    expected.put(59, sequence(1, 2, 29));
+    expected.put(61, sequence(-1, 2, 31));
+    expected.put(67, sequence(1, 2, 3, 11));
+    expected.put(71, sequence(1, 2, 5, 7));
+    expected.put(73, sequence(-1, 2, 37));
+    expected.put(79, sequence(1, 2, 3, 13));
+    expected.put(83, sequence(1, 2, 41));
+    assertEquals(expected, new SemiprimeFinder(100).getSemiprimes());
+  }
+
+  @Test
+  void findsKnownSemiprimesUpTo1000000() {
+    Map<Integer, Sequence> semiprimes =
+        new SemiprimeFinder(1_000_000).getSemiprimes();
+    assertEquals(58_686, semiprimes.size());
+    assertEquals(sequence(1, 2, 3, 19, 587), semiprimes.get(66_919));
+    assertEquals(sequence(1, 2, 7, 10_313), semiprimes.get(144_383));
+    assertEquals(sequence(-1, 2, 5, 13, 1733), semiprimes.get(225_289));
+    assertEquals(sequence(1, 2, 197_003), semiprimes.get(394_007));
+    assertEquals(sequence(-1, 2, 3, 7, 17, 797), semiprimes.get(569_057));
+    assertEquals(sequence(-1, 2, 71, 4637), semiprimes.get(658_453));
+    assertEquals(sequence(1, 2, 465_581), semiprimes.get(931_163));
+  }
+
+  @Test
+  void findsKnownNumberOfSemiprimesUpTo10000000() {
+    assertEquals(497_090, new SemiprimeFinder(10_000_000).getResults().size());
+  }
+
+  @Test
+  void parallelSearchFindsSameSemiprimes() {
+    for (int size : new int[] { 0, 1, 2, 3, 4, 10, 16, 17, 100, 1000, 12_345,
+        100_000, 1_000_003 }) {
+      Map<Integer, Sequence> expected =
+          new SemiprimeFinder(size, 1).getSemiprimes();
+      for (int parallelism : new int[] { 2, 3, 8 }) {
+        assertEquals(expected,
+            new SemiprimeFinder(size, parallelism).getSemiprimes(),
+            "size " + size + ", parallelism " + parallelism);
+      }
+    }
+  }
+
+  @Test
+  void extendedSearchEqualsNewSearch() {
+    int[][] steps = { { 10, 11, 100 }, { 1000, 12_345, 300_007 },
+        { 1, 1_000_000 } };
+    for (int[] sizes : steps) {
+      SemiprimeFinder finder = new SemiprimeFinder(sizes[0]);
+      for (int size : sizes) {
+        finder.extendTo(size);
+        assertEquals(new SemiprimeFinder(size).getSemiprimes(),
+            finder.getSemiprimes(), "size " + size);
+        assertEquals(size, finder.getPrimeSieve().getSize());
+      }
+    }
+  }
+
+  @Test
+  void derivesResultsOfSmallerSizes() {
+    SemiprimeFinder finder = new SemiprimeFinder(300_007);
+    for (int size = 0; size <= 1000; ++size) {
+      assertEquals(new SemiprimeFinder(size).getSemiprimes(),
+          finder.getResults(size).asMap(), "size " + size);
+    }
+    for (int size : new int[] { 12_345, 65_536, 100_000, 300_007 }) {
+      assertEquals(new SemiprimeFinder(size).getSemiprimes(),
+          finder.getResults(size).asMap(), "size " + size);
+    }
+    assertThrows(IllegalArgumentException.class,
+        () -> finder.getResults(300_008));
+  }
+
+  static Sequence sequence(int sign, Integer... factors) {
+    return new Sequence(sign, Arrays.asList(factors));
+  }
+}
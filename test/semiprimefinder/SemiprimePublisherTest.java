@@ -0,0 +1,180 @@
+package semiprimefinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that `SemiprimePublisher` streams the semiprimes of
+ * `SemiprimeFinder` and honors the requests and cancellations of its
+ * subscribers.
+ */
+class SemiprimePublisherTest {
+
+  /** Runs the deliveries in the thread that requests or cancels */
+  private static final Executor DIRECT = Runnable::run;
+
+  @Test
+  void forEachFindsSameSemiprimes() {
+    for (int size : new int[] { 0, 1, 2, 3, 100, 12_345, 300_007 }) {
+      SemiprimeResults expected = new SemiprimeFinder(size).getResults();
+      for (int windowSize : new int[] { 1, 1000, 1 << 16 }) {
+        if (windowSize == 1 && size > 1000) {
+          continue;
+        }
+        for (int parallelism : new int[] { 1, 3 }) {
+          SemiprimePublisher publisher = new SemiprimePublisher(size,
+              windowSize, parallelism);
+          SemiprimeResults.Builder builder = new SemiprimeResults.Builder();
+          int[] previous = { 0 };
+          publisher.forEach((prime, sign, factors, factorCount) -> {
+            assertTrue(prime > previous[0]);
+            previous[0] = prime;
+            builder.add(prime, sign, factors, factorCount);
+          });
+          assertEquals(expected.asMap(), builder.build().asMap(), "size "
+              + size + ", window size " + windowSize + ", parallelism "
+              + parallelism);
+        }
+      }
+    }
+  }
+
+  @Test
+  void subscriberReceivesAllWindows() throws InterruptedException {
+    int size = 300_007;
+    int windowSize = 1 << 14;
+    RecordingSubscriber subscriber = new RecordingSubscriber(1, 1);
+    new SemiprimePublisher(size, windowSize, 2).subscribe(subscriber);
+    assertTrue(subscriber.done.await(1, TimeUnit.MINUTES));
+    assertNull(subscriber.error);
+    assertTrue(subscriber.completed);
+    assertEquals((size - 2) / windowSize + 1, subscriber.windows.size());
+    SemiprimeResults.Builder builder = new SemiprimeResults.Builder();
+    for (SemiprimeResults window : subscriber.windows) {
+      window.forEach(builder::add);
+    }
+    assertEquals(new SemiprimeFinder(size).getSemiprimes(),
+        builder.build().asMap());
+  }
+
+  @Test
+  void deliversOnlyRequestedWindows() {
+    RecordingSubscriber subscriber = new RecordingSubscriber(2, 0);
+    new SemiprimePublisher(100_000, 1000, 1, DIRECT).subscribe(subscriber);
+    assertEquals(2, subscriber.windows.size());
+    subscriber.subscription.request(3);
+    assertEquals(5, subscriber.windows.size());
+    assertEquals(2, subscriber.windows.get(0).keyAt(0));
+    assertTrue(subscriber.windows.get(4).keyAt(0) > 4000);
+    assertFalse(subscriber.completed);
+
+    subscriber.subscription.request(Long.MAX_VALUE);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertEquals(100, subscriber.windows.size());
+    assertTrue(subscriber.completed);
+    assertNull(subscriber.error);
+  }
+
+  @Test
+  void stopsAfterCancellation() {
+    RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE,
+        0) {
+      @Override
+      public void onNext(SemiprimeResults window) {
+        super.onNext(window);
+        if (windows.size() == 3) {
+          subscription.cancel();
+        }
+      }
+    };
+    new SemiprimePublisher(100_000, 1000, 1, DIRECT).subscribe(subscriber);
+    assertEquals(3, subscriber.windows.size());
+    subscriber.subscription.request(10);
+    assertEquals(3, subscriber.windows.size());
+    assertFalse(subscriber.completed);
+    assertNull(subscriber.error);
+  }
+
+  @Test
+  void signalsErrorForInvalidRequest() {
+    RecordingSubscriber subscriber = new RecordingSubscriber(1, 0);
+    new SemiprimePublisher(100_000, 1000, 1, DIRECT).subscribe(subscriber);
+    subscriber.subscription.request(0);
+    assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+    subscriber.subscription.request(10);
+    assertEquals(1, subscriber.windows.size());
+    assertFalse(subscriber.completed);
+  }
+
+  @Test
+  void completesWithoutWindowsBelowTwo() {
+    RecordingSubscriber subscriber = new RecordingSubscriber(1, 0);
+    new SemiprimePublisher(1, 1000, 1, DIRECT).subscribe(subscriber);
+    assertTrue(subscriber.completed);
+    assertTrue(subscriber.windows.isEmpty());
+  }
+
+  /**
+   * Collects the windows, requesting `initialRequest` windows on subscription
+   * and `nextRequest` more after each window.
+   */
+  private static class RecordingSubscriber
+      implements Flow.Subscriber<SemiprimeResults> {
+
+    final List<SemiprimeResults> windows = new ArrayList<SemiprimeResults>();
+
+    final CountDownLatch done = new CountDownLatch(1);
+
+    private final long initialRequest;
+
+    private final long nextRequest;
+
+    Flow.Subscription subscription;
+
+    volatile boolean completed;
+
+    volatile Throwable error;
+
+    RecordingSubscriber(long initialRequest, long nextRequest) {
+      this.initialRequest = initialRequest;
+      this.nextRequest = nextRequest;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      subscription.request(initialRequest);
+    }
+
+    @Override
+    public void onNext(SemiprimeResults window) {
+      windows.add(window);
+      if (nextRequest > 0) {
+        subscription.request(nextRequest);
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+      done.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+      done.countDown();
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package semiprimefinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the answers of `SemiprimeQueryService` against `SemiprimeFinder` in
+ * the int range and against the definition beyond it, and the divisors that
+ * `PollardRho` finds for its big cofactors.
+ */
+class SemiprimeQueryServiceTest {
+
+  @Test
+  void answersLikeSemiprimeFinder() {
+    int size = 300_007;
+    Map<Integer, Sequence> expected = new SemiprimeFinder(size)
+        .getSemiprimes();
+    SemiprimeQueryService service = new SemiprimeQueryService();
+    for (int n = 0; n <= size; ++n) {
+      assertEquals(expected.get(n), service.lookup(n), "n = " + n);
+    }
+
+    int[] primes = new PrimeSieve(size, true).toIntArray();
+    Sequence[] sequences = new SemiprimeQueryService(0).lookupBatch(primes);
+    for (int i = 0; i < primes.length; ++i) {
+      assertEquals(expected.get(primes[i]), sequences[i], "n = " + primes[i]);
+    }
+  }
+
+  @Test
+  void answersLikeDefinitionBeyondIntRange() {
+    SemiprimeQueryService service = new SemiprimeQueryService();
+    for (long low : new long[] { Integer.MAX_VALUE - 1000L,
+        1_000_000_000_000L, 1L << 61 }) {
+      long[] primes = new long[300];
+      BigInteger prime = BigInteger.valueOf(low);
+      int semiprimeCount = 0;
+      for (int i = 0; i < primes.length; ++i) {
+        prime = prime.nextProbablePrime();
+        primes[i] = prime.longValueExact();
+        LongSequence sequence = service.lookup(primes[i]);
+        if (sequence != null) {
+          ++semiprimeCount;
+          assertSquarefreeFactorization(primes[i] - sequence.getSign(),
+              sequence.getFactors());
+        }
+      }
+      assertTrue(semiprimeCount > 0, "low " + low);
+      LongSequence[] sequences = service.lookupBatch(primes);
+      for (int i = 0; i < primes.length; ++i) {
+        assertEquals(service.lookup(primes[i]), sequences[i]);
+      }
+    }
+    assertNull(service.lookup(1_000_000_000_000L));
+    assertNull(service.lookup((1L << 62) - 1));
+    assertThrows(IllegalArgumentException.class,
+        () -> service.lookup(1L << 62));
+  }
+
+  @Test
+  void countsCacheHitsAndMisses() {
+    SemiprimeQueryService service = new SemiprimeQueryService(2);
+    for (int prime : new int[] { 7, 7, 11, 13, 7, 7 }) {
+      assertEquals(new SemiprimeFinder(100).getSemiprimes().get(prime),
+          service.lookup(prime));
+    }
+    // 7 is evicted by 11 and 13, since 2 answers are kept
+    assertEquals(2, service.getCacheHits());
+    assertEquals(4, service.getCacheMisses());
+    service.lookup(1_000_000_000_039L);
+    service.clear();
+    service.lookup(13);
+    assertEquals(2, service.getCacheHits());
+    assertEquals(6, service.getCacheMisses());
+
+    SemiprimeQueryService uncached = new SemiprimeQueryService(0);
+    uncached.lookup(7);
+    uncached.lookup(7);
+    assertEquals(0, uncached.getCacheHits());
+    assertEquals(2, uncached.getCacheMisses());
+    assertThrows(IllegalArgumentException.class,
+        () -> new SemiprimeQueryService(-1));
+  }
+
+  @Test
+  void answersConcurrentQueries()
+      throws InterruptedException, ExecutionException {
+    int size = 1_000_000;
+    Map<Integer, Sequence> expected = new SemiprimeFinder(size)
+        .getSemiprimes();
+    SemiprimeQueryService service = new SemiprimeQueryService(1000);
+    SemiprimeQueryService reference = new SemiprimeQueryService(0);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (int thread = 0; thread < 8; ++thread) {
+        int offset = thread;
+        futures.add(executor.submit(() -> {
+          // Overlapping queries, some of them beyond the table
+          for (int n = offset * 1000; n <= size; n += 3) {
+            assertEquals(expected.get(n), service.lookup(n), "n = " + n);
+          }
+          for (long n = 1L << 50; n < (1L << 50) + 3000; n += 1 + offset) {
+            assertEquals(reference.lookup(n), service.lookup(n), "n = " + n);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void pollardRhoFindsDivisors() {
+    long[] primes = { 3, 5, 7, 1009, 65_537, 1_000_003, 2_147_483_647,
+        3_037_000_493L };
+    for (int i = 0; i < primes.length; ++i) {
+      for (int j = i + 1; j < primes.length; ++j) {
+        long n = primes[i] * primes[j];
+        long divisor = PollardRho.findDivisor(n);
+        assertTrue(divisor == primes[i] || divisor == primes[j], "n = " + n);
+        if (j + 1 < primes.length && n <= Long.MAX_VALUE / primes[j + 1]) {
+          n *= primes[j + 1];
+          divisor = PollardRho.findDivisor(n);
+          assertTrue(divisor > 1 && divisor < n && n % divisor == 0,
+              "n = " + n);
+        }
+      }
+    }
+  }
+
+  private static void assertSquarefreeFactorization(long n, long[] factors) {
+    BigInteger product = BigInteger.ONE;
+    for (int i = 0; i < factors.length; ++i) {
+      assertTrue(i == 0 || factors[i - 1] < factors[i], "n = " + n);
+      BigInteger factor = BigInteger.valueOf(factors[i]);
+      assertTrue(factor.isProbablePrime(64), "n = " + n);
+      product = product.multiply(factor);
+    }
+    assertEquals(BigInteger.valueOf(n), product);
+  }
+}
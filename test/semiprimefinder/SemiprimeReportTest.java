@@ -0,0 +1,72 @@
+package semiprimefinder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that `SemiprimeReport` computes the same statistics as the separate
+ * passes of `SemiprimeEvaluator`.
+ */
+class SemiprimeReportTest {
+
+  @Test
+  void matchesSeparatePasses() {
+    for (int size : new int[] { 2, 10, 100, 1000, 100_000 }) {
+      SemiprimeFinder finder = new SemiprimeFinder(size);
+      SemiprimeResults semiprimes = finder.getResults();
+      SemiprimeReport report = SemiprimeReport.analyze(semiprimes,
+          finder.getPrimeSieve());
+      assertMatchesSeparatePasses(semiprimes,
+          finder.getPrimeSieve().toIntArray(), report);
+    }
+  }
+
+  @Test
+  void analyzesSmallerSizeWithBiggerSieve() {
+    SemiprimeFinder finder = new SemiprimeFinder(200_000);
+    for (int size : new int[] { 1000, 123_456, 200_000 }) {
+      SemiprimeResults semiprimes = finder.getResults(size);
+      SemiprimeReport report = SemiprimeReport.analyze(semiprimes,
+          finder.getPrimeSieve(), size);
+      assertMatchesSeparatePasses(semiprimes,
+          new PrimeSieve(size, true).toIntArray(), report);
+    }
+  }
+
+  private static void assertMatchesSeparatePasses(SemiprimeResults semiprimes,
+      int[] primes, SemiprimeReport report) {
+    Map<Integer, Sequence> map = semiprimes.asMap();
+    assertEquals(semiprimes.size(), report.getSemiprimeCount());
+    assertEquals(semiprimes.maxFactorCount(), report.getMaxSequenceLength());
+
+    boolean[] allowed = SemiprimeEvaluator.constructAllowedList(semiprimes);
+    int allowedCount = 0;
+    for (int i = 0; i < allowed.length; ++i) {
+      assertEquals(allowed[i], report.isAllowed(i), "index " + i);
+      allowedCount += allowed[i] ? 1 : 0;
+    }
+    assertEquals(allowedCount, report.getAllowedCount());
+
+    assertArrayEquals(PrimeSieveTest.toArray(
+        SemiprimeEvaluator.findMissingPrimes(primes, map)),
+        report.getMissingPrimes());
+
+    Map<Integer, Integer> occurrences = new TreeMap<Integer, Integer>();
+    for (int i = 0; i < report.getDistinctFactorCount(); ++i) {
+      occurrences.put(report.getFactor(i), report.getOccurrences(i));
+      assertEquals(report.getOccurrences(i),
+          report.getOccurrencesOf(report.getFactor(i)));
+    }
+    assertEquals(SemiprimeEvaluator.numberOfOccurrences(map), occurrences);
+
+    Integer[] digitCounts = SemiprimeEvaluator.lastDigitOfFactors(map);
+    long[] reportDigitCounts = report.getLastDigitCounts();
+    for (int digit = 0; digit < 10; ++digit) {
+      assertEquals((long) digitCounts[digit], reportDigitCounts[digit]);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package semiprimefinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Writes results with `SemiprimeResultsFile` and reads them back with
+ * `MappedSemiprimeResults`.
+ */
+class SemiprimeResultsFileTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void readsWrittenResults() throws IOException {
+    for (int size : new int[] { 1, 100, 250_000 }) {
+      SemiprimeResults expected = new SemiprimeFinder(size).getResults();
+      MappedSemiprimeResults mapped = writeAndOpen(expected);
+      assertEquals(expected.size(), mapped.size());
+      assertEquals(expected.maxFactorCount(), mapped.maxFactorCount());
+      assertEquals(expected.asMap(), mapped.toResults().asMap());
+      for (int i = 0; i < expected.size(); ++i) {
+        assertEquals(expected.keyAt(i), mapped.keyAt(i));
+        assertEquals(expected.sequenceAt(i), mapped.sequenceAt(i));
+        assertEquals(i, mapped.indexOf(expected.keyAt(i)));
+      }
+    }
+  }
+
+  @Test
+  void looksUpSemiprimesAndRanges() throws IOException {
+    SemiprimeResults expected = new SemiprimeFinder(10_000).getResults();
+    MappedSemiprimeResults mapped = writeAndOpen(expected);
+    for (int n = 0; n <= 10_000; ++n) {
+      assertEquals(expected.get(n), mapped.get(n), "n = " + n);
+      assertEquals(expected.contains(n), mapped.contains(n), "n = " + n);
+    }
+    assertNull(mapped.get(10_007));
+    assertEquals(mapped.size(), mapped.lowerBound(Integer.MAX_VALUE));
+
+    List<Integer> range = new ArrayList<Integer>();
+    mapped.forEachIndex(1000, 1100, i -> range.add(mapped.keyAt(i)));
+    List<Integer> expectedRange = new ArrayList<Integer>();
+    for (int prime : expected.asMap().keySet()) {
+      if (prime >= 1000 && prime <= 1100) {
+        expectedRange.add(prime);
+      }
+    }
+    assertEquals(expectedRange, range);
+  }
+
+  @Test
+  void rejectsTruncatedAndCorruptFiles() throws IOException {
+    Path file = directory.resolve("results.bin");
+    SemiprimeResultsFile.write(new SemiprimeFinder(1000).getResults(),
+        file.toString());
+    byte[] saved = Files.readAllBytes(file);
+
+    assertOpenFails(file, Arrays.copyOf(saved, saved.length - 1));
+    assertOpenFails(file, Arrays.copyOf(saved, 20));
+    assertOpenFails(file, new byte[0]);
+    // Entry count, factor total and the position of the signs section
+    for (int offset : new int[] { 8, 16, 48 }) {
+      ByteBuffer corrupt = ByteBuffer.wrap(saved.clone())
+          .order(ByteOrder.LITTLE_ENDIAN);
+      corrupt.putInt(offset, corrupt.getInt(offset) + 1000);
+      assertOpenFails(file, corrupt.array());
+      corrupt.putInt(offset, -1);
+      assertOpenFails(file, corrupt.array());
+    }
+  }
+
+  @Test
+  void readsEmptyResults() throws IOException {
+    MappedSemiprimeResults mapped = writeAndOpen(
+        new SemiprimeResults.Builder().build());
+    assertEquals(0, mapped.size());
+    assertTrue(mapped.toResults().asMap().isEmpty());
+  }
+
+  private MappedSemiprimeResults writeAndOpen(SemiprimeResults results)
+      throws IOException {
+    String file = directory.resolve("results.bin").toString();
+    SemiprimeResultsFile.write(results, file);
+    return MappedSemiprimeResults.open(file);
+  }
+
+  private static void assertOpenFails(Path file, byte[] content)
+      throws IOException {
+    Files.write(file, content);
+    assertThrows(IOException.class,
+        () -> MappedSemiprimeResults.open(file.toString()));
+  }
+}
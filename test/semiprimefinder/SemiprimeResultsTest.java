@@ -0,0 +1,97 @@
+package semiprimefinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the columnar `SemiprimeResults` against a TreeMap of sequences.
+ */
+class SemiprimeResultsTest {
+
+  @Test
+  void buildsSortedResultsFromAnyOrder() {
+    SemiprimeResults.Builder builder = new SemiprimeResults.Builder();
+    builder.add(31, 1, new int[] { 2, 3, 5, 99 }, 3);
+    builder.add(2, -1, new int[] { 3 }, 1);
+    SemiprimeResults.Builder other = new SemiprimeResults.Builder();
+    other.add(13, -1, new int[] { 2, 7 }, 2);
+    builder.addAll(other);
+    assertEquals(3, builder.size());
+
+    SemiprimeResults results = builder.build();
+    assertEquals(3, results.size());
+    assertEquals(2, results.keyAt(0));
+    assertEquals(13, results.keyAt(1));
+    assertEquals(31, results.keyAt(2));
+    assertEquals(3, results.maxFactorCount());
+    assertEquals(SemiprimeFinderTest.sequence(1, 2, 3, 5), results.get(31));
+    assertEquals(SemiprimeFinderTest.sequence(-1, 2, 7),
+        results.sequenceAt(1));
+    assertNull(results.get(3));
+    assertTrue(results.indexOf(3) < 0);
+  }
+
+  @Test
+  void convertsFromAndToMap() {
+    Map<Integer, Sequence> expected = new TreeMap<Integer, Sequence>(
+        new SemiprimeFinder(100_000).getSemiprimes());
+    SemiprimeResults results = SemiprimeResults.of(expected);
+    assertEquals(expected, results.asMap());
+    assertEquals(expected.keySet(), results.asMap().keySet());
+    assertEquals(new ArrayList<Sequence>(expected.values()),
+        new ArrayList<Sequence>(results.asMap().values()));
+    for (int n = -1; n <= 1000; ++n) {
+      assertEquals(expected.get(n), results.asMap().get(n), "n = " + n);
+      assertEquals(expected.containsKey(n), results.contains(n), "n = " + n);
+    }
+  }
+
+  @Test
+  void passesEntriesToConsumer() {
+    SemiprimeResults results = new SemiprimeFinder(10_000).getResults();
+    List<Integer> keys = new ArrayList<Integer>();
+    results.forEach((prime, sign, factors, factorCount) -> {
+      int index = keys.size();
+      keys.add(prime);
+      assertEquals(results.signAt(index), sign);
+      assertEquals(results.factorCount(index), factorCount);
+      for (int i = 0; i < factorCount; ++i) {
+        assertEquals(results.factorAt(index, i), factors[i]);
+      }
+    });
+    assertEquals(new ArrayList<Integer>(results.asMap().keySet()), keys);
+  }
+
+  @Test
+  void selectsSubset() {
+    SemiprimeResults results = new SemiprimeFinder(10_000).getResults();
+    SemiprimeResults subset = results.subset(100,
+        i -> results.signAt(i) == 1);
+    Map<Integer, Sequence> expected = new TreeMap<Integer, Sequence>();
+    for (int i = 0; i < 100; ++i) {
+      if (results.signAt(i) == 1) {
+        expected.put(results.keyAt(i), results.sequenceAt(i));
+      }
+    }
+    assertEquals(expected, subset.asMap());
+  }
+
+  @Test
+  void sequencesAreImmutable() {
+    Sequence sequence = new SemiprimeFinder(100).getResults().get(31);
+    assertThrows(UnsupportedOperationException.class,
+        () -> sequence.setSign(-1));
+    assertThrows(UnsupportedOperationException.class,
+        () -> sequence.getFactors().set(0, 7));
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> sequence.getFactors().get(3));
+  }
+}
@@ -0,0 +1,68 @@
+package semiprimefinder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that merging the shards of worker processes gives the results and
+ * the CSV file of a search in a single process.
+ */
+class ShardedSemiprimeSearchTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void mergedResultsEqualSingleProcessSearch() throws Exception {
+    for (int size : new int[] { 10, 1000, 200_003 }) {
+      SemiprimeResults expected = new SemiprimeFinder(size, 1).getResults();
+      Path expectedCsv = directory.resolve(size + "_expected.csv");
+      SemiprimeEvaluator.exportCsvFile(expectedCsv.toString(),
+          new PrimeSieve(size, true).iterator(2, size), expected);
+
+      for (int workers : new int[] { 1, 3, 7 }) {
+        Path output = directory.resolve(size + "-" + workers);
+        ShardedSemiprimeSearch search = new ShardedSemiprimeSearch(size,
+            workers, output.toString());
+        search.runWorkers();
+        search.merge();
+
+        String message = "size " + size + ", " + workers + " workers";
+        MappedSemiprimeResults merged = MappedSemiprimeResults.open(
+            output.resolve(ShardedSemiprimeSearch.RESULTS_FILE).toString());
+        assertEquals(expected.asMap(), merged.toResults().asMap(), message);
+        assertArrayEquals(Files.readAllBytes(expectedCsv),
+            Files.readAllBytes(output.resolve(size + "_eval.csv")), message);
+      }
+    }
+  }
+
+  @Test
+  void slicesFindSameSemiprimes() {
+    int size = 300_007;
+    Map<Integer, Sequence> semiprimes = new TreeMap<Integer, Sequence>();
+    for (int from = 0; from <= size; from += 65_537) {
+      semiprimes.putAll(ShardedSemiprimeSearch.searchSlice(size, from,
+          from + 65_536).asMap());
+    }
+    assertEquals(new SemiprimeFinder(size).getSemiprimes(), semiprimes);
+  }
+
+  @Test
+  void emptyShardsAreMerged() throws IOException, InterruptedException {
+    ShardedSemiprimeSearch search = new ShardedSemiprimeSearch(2, 4,
+        directory.toString());
+    search.runWorkers();
+    search.merge();
+    assertEquals(0, MappedSemiprimeResults.open(directory.resolve(
+        ShardedSemiprimeSearch.RESULTS_FILE).toString()).size());
+  }
+}